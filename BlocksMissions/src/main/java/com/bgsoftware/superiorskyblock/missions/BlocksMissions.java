@@ -5,12 +5,22 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.common.ChunkStorage;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
+import com.bgsoftware.superiorskyblock.missions.common.CountersSerializer;
+import com.bgsoftware.superiorskyblock.missions.common.CountersTracker;
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
+import com.bgsoftware.superiorskyblock.missions.common.WildStackerHook;
+import com.bgsoftware.superiorskyblock.missions.blocks.BlocksRequirements;
+import com.bgsoftware.superiorskyblock.missions.blocks.PlacedBlocksIndex;
 import com.bgsoftware.wildstacker.api.events.BarrelUnstackEvent;
 import com.bgsoftware.wildtools.api.events.CuboidWandUseEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.configuration.ConfigurationSection;
@@ -22,16 +32,20 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPistonExtendEvent;
 import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -44,41 +58,70 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
     private static final Pattern percentagePattern = Pattern.compile("(.*)\\{percentage_(.+?)}(.*)"),
             valuePattern = Pattern.compile("(.*)\\{value_(.+?)}(.*)");
 
-    private static final Map<Location, Material> placedBlocks = new HashMap<>();
+    private static final long PLACED_BLOCKS_SAVE_INTERVAL = 600L;
 
-    private final Map<List<String>, Integer> requiredBlocks = new HashMap<>();
+    private static final PlacedBlocksIndex placedBlocks = new PlacedBlocksIndex();
+    private static ChunkStorage placedBlocksStorage;
+    private static ChunkStorage.Palette materialsPalette;
+    private static long[] movedBlockKeys = new long[16];
+
+    private BlocksRequirements blocksRequirements;
+    private Requirements<String> requirements;
 
     private boolean onlyNatural, blocksPlacement, replaceBlocks;
     private JavaPlugin plugin;
+    private CompletionScheduler completionScheduler;
+
+    private WildStackerHook wildStackerHook;
+    private boolean wildStackerListenerRegistered, wildToolsListenerRegistered;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
+        this.wildStackerHook = new WildStackerHook(plugin);
 
         if (!section.contains("required-blocks"))
             throw new MissionLoadException("You must have the \"required-blocks\" section in the config.");
 
+        Map<List<String>, Integer> requiredBlocks = new HashMap<>();
+
         for (String key : section.getConfigurationSection("required-blocks").getKeys(false)) {
             List<String> blocks = section.getStringList("required-blocks." + key + ".types");
             int requiredAmount = section.getInt("required-blocks." + key + ".amount");
             requiredBlocks.put(blocks, requiredAmount);
         }
 
+        blocksRequirements = BlocksRequirements.compile(requiredBlocks);
+        requirements = blocksRequirements.getRequirements();
+
         //resetAfterFinish = section.getBoolean("reset-after-finish", false);
         onlyNatural = section.getBoolean("only-natural-blocks", false);
         blocksPlacement = section.getBoolean("blocks-placement", false);
         replaceBlocks = section.getBoolean("blocks-replace", false);
 
         Bukkit.getPluginManager().registerEvents(this, plugin);
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            if (Bukkit.getPluginManager().isPluginEnabled("WildStacker"))
-                Bukkit.getPluginManager().registerEvents(new WildStackerListener(), plugin);
-            if (Bukkit.getPluginManager().isPluginEnabled("WildTools")) {
-                Bukkit.getPluginManager().registerEvents(new WildToolsListener(), plugin);
-            }
-        }, 1L);
 
-        setClearMethod(blocksTracker -> blocksTracker.blocksTracker.clear());
+        if (placedBlocksStorage == null) {
+            placedBlocksStorage = new ChunkStorage(new File(plugin.getDataFolder(), "datastore/placed-blocks"),
+                    "placed blocks", plugin.getLogger());
+            materialsPalette = ChunkStorage.Palette.ofNames(
+                    Arrays.stream(Material.values()).map(Material::name).toArray(String[]::new));
+            Bukkit.getPluginManager().registerEvents(new PlacedBlocksListener(), plugin);
+            Bukkit.getScheduler().runTaskTimer(plugin, BlocksMissions::savePlacedBlocks,
+                    PLACED_BLOCKS_SAVE_INTERVAL, PLACED_BLOCKS_SAVE_INTERVAL);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                for (World world : Bukkit.getWorlds()) {
+                    for (Chunk chunk : world.getLoadedChunks())
+                        loadPlacedBlocks(chunk);
+                }
+            });
+        }
+
+        Bukkit.getPluginManager().registerEvents(new PluginHooksListener(), plugin);
+        Bukkit.getScheduler().runTaskLater(plugin, this::refreshPluginHooks, 1L);
+
+        setClearMethod(BlocksTracker::clear);
     }
 
     @Override
@@ -88,15 +131,7 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
         if (blocksTracker == null)
             return 0.0;
 
-        int requiredBlocks = 0;
-        int interactions = 0;
-
-        for (Map.Entry<List<String>, Integer> requiredBlock : this.requiredBlocks.entrySet()) {
-            requiredBlocks += requiredBlock.getValue();
-            interactions += Math.min(blocksTracker.getBlocks(requiredBlock.getKey()), requiredBlock.getValue());
-        }
-
-        return (double) interactions / requiredBlocks;
+        return blocksTracker.getProgress();
     }
 
     @Override
@@ -106,12 +141,7 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
         if (blocksTracker == null)
             return 0;
 
-        int interactions = 0;
-
-        for (Map.Entry<List<String>, Integer> requiredBlock : this.requiredBlocks.entrySet())
-            interactions += Math.min(blocksTracker.getBlocks(requiredBlock.getKey()), requiredBlock.getValue());
-
-        return interactions;
+        return blocksTracker.getProgressValue();
     }
 
     @Override
@@ -126,32 +156,42 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
 
     @Override
     public void saveProgress(ConfigurationSection section) {
-        for (Map.Entry<SuperiorPlayer, BlocksTracker> entry : entrySet()) {
-            String uuid = entry.getKey().getUniqueId().toString();
-            for (Map.Entry<String, Integer> brokenEntry : entry.getValue().blocksTracker.entrySet()) {
-                section.set(uuid + "." + brokenEntry.getKey(), brokenEntry.getValue());
-            }
+        for (Map.Entry<SuperiorPlayer, BlocksTracker> entry : entrySet())
+            CountersSerializer.save(section, entry.getKey().getUniqueId().toString(), entry.getValue());
+
+        // The plugin is only disabled while it saves the data of missions when it shuts down. The dirty chunks
+        // are then collected even if the save is not done on the main thread, as the storage is closed after.
+        if (!plugin.isEnabled()) {
+            savePlacedBlocks();
+            placedBlocksStorage.close();
+        } else if (Bukkit.isPrimaryThread()) {
+            savePlacedBlocks();
         }
     }
 
     @Override
     public void loadProgress(ConfigurationSection section) {
         for (String uuid : section.getKeys(false)) {
-            BlocksTracker blocksTracker = new BlocksTracker();
+            BlocksTracker blocksTracker = new BlocksTracker(requirements);
             UUID playerUUID = UUID.fromString(uuid);
             SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(playerUUID);
 
             insertData(superiorPlayer, blocksTracker);
 
+            if (CountersSerializer.load(section, uuid, blocksTracker))
+                continue;
+
             for (String key : section.getConfigurationSection(uuid).getKeys(false)) {
-                blocksTracker.blocksTracker.put(key, section.getInt(uuid + "." + key));
+                int slot = requirements.getSlotByName(key);
+                if (slot != Requirements.NO_SLOT)
+                    blocksTracker.track(slot, section.getInt(uuid + "." + key));
             }
         }
     }
 
     @Override
     public void formatItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        BlocksTracker blocksTracker = getOrCreate(superiorPlayer, s -> new BlocksTracker());
+        BlocksTracker blocksTracker = getOrCreate(superiorPlayer, s -> new BlocksTracker(requirements));
 
         ItemMeta itemMeta = itemStack.getItemMeta();
 
@@ -186,12 +226,15 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent e) {
-        placedBlocks.put(e.getBlock().getLocation(), e.getBlock().getType());
+        Block block = e.getBlock();
+        UUID worldId = block.getWorld().getUID();
+        Material blockType = block.getType();
+
+        placedBlocks.put(worldId, block.getX(), block.getY(), block.getZ(), blockType.ordinal());
 
         if (blocksPlacement)
             return;
 
-        Material blockType = e.getBlock().getType();
         short blockData = 0;
 
         try {
@@ -202,13 +245,44 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
 
         SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(e.getPlayer());
 
-        boolean blockReplace = placedBlocks.get(e.getBlock().getLocation()) == e.getBlock().getType();
+        boolean blockReplace = placedBlocks.get(worldId, block.getX(), block.getY(), block.getZ()) == blockType.ordinal();
+
+        int blockSlot = blocksRequirements.getSlot(blockType, blockData);
 
-        if (isBarrel(e.getBlock()) || (!replaceBlocks && blockReplace) || !isMissionBlock(blockType, blockData) ||
+        if (isBarrel(e.getBlock()) || (!replaceBlocks && blockReplace) || blockSlot == Requirements.NO_SLOT ||
                 !superiorSkyblock.getMissions().hasAllRequiredMissions(superiorPlayer, this))
             return;
 
-        handleBlockTrack(e.getPlayer(), blockType, blockData, getBlockAmount(e.getPlayer(), e.getBlock()));
+        handleBlockTrack(e.getPlayer(), blockSlot, getBlockAmount(e.getPlayer(), e.getBlock()));
+    }
+
+    private static class PlacedBlocksListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onChunkLoad(ChunkLoadEvent e) {
+            loadPlacedBlocks(e.getChunk());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onChunkUnload(ChunkUnloadEvent e) {
+            UUID worldId = e.getWorld().getUID();
+            int chunkX = e.getChunk().getX(), chunkZ = e.getChunk().getZ();
+            ChunkStorage.ChunkData chunkData = placedBlocks.releaseChunk(worldId, chunkX, chunkZ);
+            if (chunkData != null)
+                placedBlocksStorage.writeChunkAsync(worldId, chunkX, chunkZ, chunkData, materialsPalette);
+        }
+
+    }
+
+    private class PluginHooksListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPluginEnable(PluginEnableEvent e) {
+            String pluginName = e.getPlugin().getName();
+            if (pluginName.equals("WildStacker") || pluginName.equals("WildTools"))
+                refreshPluginHooks();
+        }
+
     }
 
     private class WildStackerListener implements Listener {
@@ -222,10 +296,12 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
             ItemStack barrelItem = e.getBarrel().getBarrelItem(1);
             Material blockType = barrelItem.getType();
 
-            if (!isMissionBlock(blockType, barrelItem.getDurability()))
+            int blockSlot = blocksRequirements.getSlot(blockType, barrelItem.getDurability());
+
+            if (blockSlot == Requirements.NO_SLOT)
                 return;
 
-            handleBlockTrack((Player) e.getUnstackSource(), blockType, barrelItem.getDurability(), e.getAmount());
+            handleBlockTrack((Player) e.getUnstackSource(), blockSlot, e.getAmount());
         }
 
     }
@@ -234,14 +310,12 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
 
         @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
         public void onCuboidUse(CuboidWandUseEvent e) {
-            for (Location location : e.getBlocks())
-                handleBlockBreak(location.getBlock(), e.getPlayer());
+            handleBlocksBreak(e.getBlocks(), e.getPlayer());
         }
 
     }
 
     private void handleBlockBreak(Block block, Player player) {
-        Location location = block.getLocation();
         Material blockType = block.getType();
         short blockData = 0;
 
@@ -253,42 +327,130 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
 
         SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(player);
 
-        Material placedBlockMaterial = placedBlocks.get(location);
+        UUID worldId = block.getWorld().getUID();
+        int x = block.getX(), y = block.getY(), z = block.getZ();
+
+        int placedBlockType = placedBlocks.get(worldId, x, y, z);
 
-        if (placedBlockMaterial != null)
-            Bukkit.getScheduler().runTaskLater(plugin, () -> placedBlocks.remove(location), 2L);
+        if (placedBlockType != PlacedBlocksIndex.NONE)
+            Bukkit.getScheduler().runTaskLater(plugin, () -> placedBlocks.remove(worldId, x, y, z), 2L);
 
-        boolean placedByPlayer = placedBlockMaterial == blockType;
+        boolean placedByPlayer = placedBlockType == blockType.ordinal();
 
-        if (isBarrel(block) || (onlyNatural && placedByPlayer) || !isMissionBlock(blockType, blockData) ||
+        int blockSlot = blocksRequirements.getSlot(blockType, blockData);
+
+        if (isBarrel(block) || (onlyNatural && placedByPlayer) || blockSlot == Requirements.NO_SLOT ||
                 !superiorSkyblock.getMissions().hasAllRequiredMissions(superiorPlayer, this))
             return;
 
-        handleBlockTrack(player, blockType, blockData, getBlockAmount(player, block));
+        handleBlockTrack(player, blockSlot, getBlockAmount(player, block));
     }
 
-    private void handleBlockPistonMove(List<Block> blockList, BlockFace direction) {
-        for (Block block : blockList) {
-            Material blockMaterial = placedBlocks.remove(block.getLocation());
-            if (blockMaterial != null) {
-                placedBlocks.put(block.getRelative(direction).getLocation(), blockMaterial);
+    private void handleBlocksBreak(List<Location> locations, Player player) {
+        if (locations.isEmpty())
+            return;
+
+        SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(player);
+
+        boolean trackBlocks = superiorSkyblock.getMissions().hasAllRequiredMissions(superiorPlayer, this) &&
+                superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this);
+
+        int[] brokenBlocks = trackBlocks ? new int[requirements.getSlotsCount()] : null;
+        boolean trackedBlocks = false;
+
+        // Cuboid selections never span multiple worlds.
+        UUID worldId = locations.get(0).getWorld().getUID();
+        long[] placedBlockKeys = new long[16];
+        int placedBlocksCount = 0;
+
+        for (Location location : locations) {
+            Block block = location.getBlock();
+            Material blockType = block.getType();
+            int x = block.getX(), y = block.getY(), z = block.getZ();
+
+            int placedBlockType = placedBlocks.get(worldId, x, y, z);
+
+            if (placedBlockType != PlacedBlocksIndex.NONE) {
+                if (placedBlocksCount == placedBlockKeys.length)
+                    placedBlockKeys = Arrays.copyOf(placedBlockKeys, placedBlocksCount * 2);
+                placedBlockKeys[placedBlocksCount++] = PlacedBlocksIndex.packBlock(x, y, z);
+            }
+
+            if (!trackBlocks || (onlyNatural && placedBlockType == blockType.ordinal()) || isBarrel(block))
+                continue;
+
+            short blockData = 0;
+
+            try {
+                //noinspection deprecation
+                blockData = block.getData();
+            } catch (Throwable ignored) {
             }
+
+            int blockSlot = blocksRequirements.getSlot(blockType, blockData);
+
+            if (blockSlot == Requirements.NO_SLOT)
+                continue;
+
+            brokenBlocks[blockSlot] += getBlockAmount(player, block);
+            trackedBlocks = true;
+        }
+
+        if (placedBlocksCount > 0) {
+            long[] removedBlockKeys = placedBlockKeys;
+            int removedBlocksCount = placedBlocksCount;
+            Bukkit.getScheduler().runTaskLater(plugin, () ->
+                    placedBlocks.removeAll(worldId, removedBlockKeys, removedBlocksCount), 2L);
+        }
+
+        if (!trackedBlocks)
+            return;
+
+        BlocksTracker blocksTracker = getOrCreate(superiorPlayer, s -> new BlocksTracker(requirements));
+        blocksTracker.trackAll(brokenBlocks);
+
+        completionScheduler.markDirty(superiorPlayer);
+    }
+
+    private void handleBlockPistonMove(List<Block> blockList, BlockFace direction) {
+        int blocksCount = blockList.size();
+
+        if (blocksCount == 0)
+            return;
+
+        if (movedBlockKeys.length < blocksCount)
+            movedBlockKeys = new long[Math.max(blocksCount, movedBlockKeys.length * 2)];
+
+        for (int i = 0; i < blocksCount; ++i) {
+            Block block = blockList.get(i);
+            movedBlockKeys[i] = PlacedBlocksIndex.packBlock(block.getX(), block.getY(), block.getZ());
         }
+
+        placedBlocks.relocate(blockList.get(0).getWorld().getUID(), movedBlockKeys, blocksCount,
+                direction.getModX(), direction.getModY(), direction.getModZ());
+    }
+
+    private static void loadPlacedBlocks(Chunk chunk) {
+        UUID worldId = chunk.getWorld().getUID();
+        placedBlocks.loadChunk(worldId, chunk.getX(), chunk.getZ(),
+                placedBlocksStorage.readChunk(worldId, chunk.getX(), chunk.getZ(), materialsPalette));
+    }
+
+    private static void savePlacedBlocks() {
+        placedBlocks.collectDirtyChunks((worldId, chunkX, chunkZ, chunkData) ->
+                placedBlocksStorage.writeChunkAsync(worldId, chunkX, chunkZ, chunkData, materialsPalette));
     }
 
-    private void handleBlockTrack(Player player, Material blockType, short data, int amount) {
+    private void handleBlockTrack(Player player, int blockSlot, int amount) {
         SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(player);
 
-        if (!isMissionBlock(blockType, data) || !superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
+        if (!superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
             return;
 
-        BlocksTracker blocksTracker = getOrCreate(superiorPlayer, s -> new BlocksTracker());
-        blocksTracker.trackBlock(blockType, data, amount);
+        BlocksTracker blocksTracker = getOrCreate(superiorPlayer, s -> new BlocksTracker(requirements));
+        blocksTracker.track(blockSlot, amount);
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(_player -> {
-            if (canComplete(superiorPlayer))
-                superiorSkyblock.getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        completionScheduler.markDirty(superiorPlayer);
     }
 
     private int getBlockAmount(Player player, Block block) {
@@ -304,21 +466,21 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
     }
 
     private boolean isBarrel(Block block) {
-        return Bukkit.getPluginManager().isPluginEnabled("WildStacker") &&
-                com.bgsoftware.wildstacker.api.WildStackerAPI.getWildStacker().getSystemManager().isStackedBarrel(block);
+        return wildStackerHook.isStackedBarrel(block);
     }
 
-    private boolean isMissionBlock(Material blockType, short data) {
-        if (blockType == null)
-            return false;
+    private void refreshPluginHooks() {
+        PluginManager pluginManager = Bukkit.getPluginManager();
 
-        for (List<String> requiredBlock : requiredBlocks.keySet()) {
-            if (requiredBlock.contains(blockType.name()) || requiredBlock.contains(blockType.name() + ":" + data) ||
-                    requiredBlock.contains("all") || requiredBlock.contains("ALL"))
-                return true;
+        if (pluginManager.isPluginEnabled("WildStacker") && !wildStackerListenerRegistered) {
+            pluginManager.registerEvents(new WildStackerListener(), plugin);
+            wildStackerListenerRegistered = true;
         }
 
-        return false;
+        if (pluginManager.isPluginEnabled("WildTools") && !wildToolsListenerRegistered) {
+            pluginManager.registerEvents(new WildToolsListener(), plugin);
+            wildToolsListenerRegistered = true;
+        }
     }
 
     private String parsePlaceholders(BlocksTracker blocksTracker, String line) {
@@ -326,51 +488,29 @@ public final class BlocksMissions extends Mission<BlocksMissions.BlocksTracker>
 
         if (matcher.matches()) {
             String requiredBlock = matcher.group(2).toUpperCase();
-            Optional<Map.Entry<List<String>, Integer>> entry = requiredBlocks.entrySet().stream().filter(e -> e.getKey().contains(requiredBlock)).findAny();
-            if (entry.isPresent()) {
+            int requirement = requirements.getRequirementByName(requiredBlock);
+            if (requirement != Requirements.NO_SLOT) {
                 line = line.replace("{percentage_" + matcher.group(2) + "}",
-                        "" + (blocksTracker.getBlocks(Collections.singletonList(requiredBlock)) * 100) / entry.get().getValue());
+                        "" + (blocksTracker.getCountByName(requiredBlock) * 100) / requirements.getRequiredAmount(requirement));
             }
         }
 
         if ((matcher = valuePattern.matcher(line)).matches()) {
             String requiredBlock = matcher.group(2).toUpperCase();
-            Optional<Map.Entry<List<String>, Integer>> entry = requiredBlocks.entrySet().stream().filter(e -> e.getKey().contains(requiredBlock)).findFirst();
-            if (entry.isPresent()) {
+            int requirement = requirements.getRequirementByName(requiredBlock);
+            if (requirement != Requirements.NO_SLOT) {
                 line = line.replace("{value_" + matcher.group(2) + "}",
-                        "" + blocksTracker.getBlocks(Collections.singletonList(requiredBlock)));
+                        "" + blocksTracker.getCountByName(requiredBlock));
             }
         }
 
         return ChatColor.translateAlternateColorCodes('&', line);
     }
 
-    public class BlocksTracker {
-
-        private final Map<String, Integer> blocksTracker = new HashMap<>();
-
-        void trackBlock(Material blockType, short data, int amount) {
-            String material = blockType.name();
-
-            if (requiredBlocks.entrySet().stream().anyMatch(entry -> entry.getKey().contains(blockType.name() + ":" + data)))
-                material = blockType.name() + ":" + data;
-
-            blocksTracker.put(material, amount + blocksTracker.getOrDefault(material, 0));
-        }
-
-        int getBlocks(List<String> blocks) {
-            int amount = 0;
-
-            for (String block : blocks) {
-                if (block.equalsIgnoreCase("ALL")) {
-                    for (int value : blocksTracker.values())
-                        amount += value;
-                } else {
-                    amount += blocksTracker.getOrDefault(block, 0);
-                }
-            }
+    public static class BlocksTracker extends CountersTracker {
 
-            return amount;
+        BlocksTracker(Requirements<String> requirements) {
+            super(requirements);
         }
 
     }
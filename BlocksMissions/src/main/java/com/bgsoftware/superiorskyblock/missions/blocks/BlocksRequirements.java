@@ -0,0 +1,89 @@
+package com.bgsoftware.superiorskyblock.missions.blocks;
+
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
+import org.bukkit.Material;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup table of the slots of the required blocks of a mission, indexed by material ordinal and data value.
+ * Blocks that are not required explicitly are mapped to the "ALL" slot of the requirements, if there is one.
+ */
+public final class BlocksRequirements {
+
+    private static final int DATA_VALUES = 16;
+
+    private final Requirements<String> requirements;
+    private final int[] materialSlots;
+    private int[] dataSlots = null;
+
+    private BlocksRequirements(Requirements<String> requirements) {
+        this.requirements = requirements;
+        this.materialSlots = new int[Material.values().length];
+    }
+
+    public static BlocksRequirements compile(Map<List<String>, Integer> requiredBlocks) {
+        // Blocks missions always counted the blocks that a requirement lists again on top of its "ALL".
+        BlocksRequirements blocksRequirements = new BlocksRequirements(Requirements.fromNames(requiredBlocks, true));
+        Requirements<String> requirements = blocksRequirements.requirements;
+
+        Arrays.fill(blocksRequirements.materialSlots, requirements.getSlotByName(Requirements.ALL));
+
+        for (int slot = 0; slot < requirements.getSlotsCount(); ++slot) {
+            if (!requirements.isAllSlot(slot))
+                blocksRequirements.addBlock(requirements.getSlotName(slot), slot);
+        }
+
+        if (blocksRequirements.dataSlots != null) {
+            for (int i = 0; i < blocksRequirements.dataSlots.length; ++i) {
+                if (blocksRequirements.dataSlots[i] == Requirements.NO_SLOT)
+                    blocksRequirements.dataSlots[i] = blocksRequirements.materialSlots[i / DATA_VALUES];
+            }
+        }
+
+        return blocksRequirements;
+    }
+
+    public Requirements<String> getRequirements() {
+        return requirements;
+    }
+
+    public int getSlot(Material blockType, short data) {
+        return dataSlots == null || data < 0 || data >= DATA_VALUES ? materialSlots[blockType.ordinal()] :
+                dataSlots[blockType.ordinal() * DATA_VALUES + data];
+    }
+
+    private void addBlock(String block, int slot) {
+        String[] sections = block.split(":");
+        Material material = Material.getMaterial(sections[0]);
+
+        if (material == null)
+            return;
+
+        if (sections.length == 1) {
+            materialSlots[material.ordinal()] = slot;
+            return;
+        }
+
+        short data;
+
+        try {
+            data = Short.parseShort(sections[1]);
+        } catch (NumberFormatException ex) {
+            return;
+        }
+
+        if (data < 0 || data >= DATA_VALUES)
+            return;
+
+        if (dataSlots == null) {
+            dataSlots = new int[materialSlots.length * DATA_VALUES];
+            Arrays.fill(dataSlots, Requirements.NO_SLOT);
+        }
+
+        dataSlots[material.ordinal() * DATA_VALUES + data] = slot;
+    }
+
+}
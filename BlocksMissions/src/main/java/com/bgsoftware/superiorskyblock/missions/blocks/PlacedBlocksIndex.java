@@ -0,0 +1,238 @@
+package com.bgsoftware.superiorskyblock.missions.blocks;
+
+import com.bgsoftware.superiorskyblock.missions.common.ChunkStorage;
+import com.bgsoftware.superiorskyblock.missions.common.LongIntMap;
+import com.bgsoftware.superiorskyblock.missions.common.LongObjectMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Index of player-placed blocks, split by world and chunk.
+ * Blocks are keyed by their packed coordinates and store the ordinal of their material.
+ */
+public final class PlacedBlocksIndex {
+
+    public static final int NONE = ChunkStorage.NONE;
+
+    private final Map<UUID, LongObjectMap<ChunkSection>> worlds = new HashMap<>();
+
+    private int[] relocatedValues = new int[16];
+
+    public int get(UUID worldId, int x, int y, int z) {
+        ChunkSection chunkSection = getSection(worldId, x >> 4, z >> 4);
+        return chunkSection == null ? NONE : chunkSection.blocks.get(packBlock(x, y, z));
+    }
+
+    public void put(UUID worldId, int x, int y, int z, int value) {
+        ChunkSection chunkSection = getOrCreateSection(worldId, x >> 4, z >> 4);
+        chunkSection.blocks.put(packBlock(x, y, z), value);
+        chunkSection.dirty = true;
+    }
+
+    public int remove(UUID worldId, int x, int y, int z) {
+        ChunkSection chunkSection = getSection(worldId, x >> 4, z >> 4);
+
+        if (chunkSection == null)
+            return NONE;
+
+        int oldValue = chunkSection.blocks.remove(packBlock(x, y, z));
+
+        if (oldValue != NONE)
+            chunkSection.dirty = true;
+
+        return oldValue;
+    }
+
+    /**
+     * Remove multiple blocks of a world, given by their packed coordinates.
+     */
+    public void removeAll(UUID worldId, long[] blockKeys, int count) {
+        LongObjectMap<ChunkSection> chunks = worlds.get(worldId);
+
+        if (chunks == null)
+            return;
+
+        ChunkSection chunkSection = null;
+        long lastChunkKey = 0;
+
+        for (int i = 0; i < count; ++i) {
+            long blockKey = blockKeys[i];
+            long chunkKey = packChunk(getBlockX(blockKey) >> 4, getBlockZ(blockKey) >> 4);
+
+            if (i == 0 || chunkKey != lastChunkKey) {
+                chunkSection = chunks.get(chunkKey);
+                lastChunkKey = chunkKey;
+            }
+
+            if (chunkSection != null && chunkSection.blocks.remove(blockKey) != NONE)
+                chunkSection.dirty = true;
+        }
+    }
+
+    /**
+     * Move multiple blocks of a world by the same offset, given by their packed coordinates.
+     * All blocks are removed before any of them is inserted at its new position, so blocks that are
+     * moved into the old positions of other blocks are not overridden.
+     */
+    public void relocate(UUID worldId, long[] blockKeys, int count, int offsetX, int offsetY, int offsetZ) {
+        LongObjectMap<ChunkSection> chunks = worlds.get(worldId);
+
+        if (chunks == null || count == 0)
+            return;
+
+        if (relocatedValues.length < count)
+            relocatedValues = new int[Math.max(count, relocatedValues.length * 2)];
+
+        boolean relocatedAny = false;
+
+        for (int i = 0; i < count; ++i) {
+            long blockKey = blockKeys[i];
+            ChunkSection chunkSection = chunks.get(packChunk(getBlockX(blockKey) >> 4, getBlockZ(blockKey) >> 4));
+
+            int value = chunkSection == null ? NONE : chunkSection.blocks.remove(blockKey);
+
+            if (value != NONE) {
+                chunkSection.dirty = true;
+                relocatedAny = true;
+            }
+
+            relocatedValues[i] = value;
+        }
+
+        if (!relocatedAny)
+            return;
+
+        for (int i = 0; i < count; ++i) {
+            int value = relocatedValues[i];
+
+            if (value == NONE)
+                continue;
+
+            long blockKey = blockKeys[i];
+            int x = getBlockX(blockKey) + offsetX;
+            int z = getBlockZ(blockKey) + offsetZ;
+
+            ChunkSection chunkSection = getOrCreateSection(worldId, x >> 4, z >> 4);
+            chunkSection.blocks.put(packBlock(x, getBlockY(blockKey) + offsetY, z), value);
+            chunkSection.dirty = true;
+        }
+    }
+
+    public void loadChunk(UUID worldId, int chunkX, int chunkZ, ChunkStorage.ChunkData chunkData) {
+        if (chunkData == null || chunkData.size() == 0)
+            return;
+
+        ChunkSection chunkSection = getOrCreateSection(worldId, chunkX, chunkZ);
+
+        for (int i = 0; i < chunkData.size(); ++i) {
+            int position = chunkData.getPosition(i);
+            long blockKey = packBlock(ChunkStorage.ChunkData.getX(chunkX, position),
+                    ChunkStorage.ChunkData.getY(position), ChunkStorage.ChunkData.getZ(chunkZ, position));
+            // Blocks that were changed before the chunk was read are newer than the stored ones.
+            if (!chunkSection.blocks.containsKey(blockKey))
+                chunkSection.blocks.put(blockKey, chunkData.getValue(i));
+        }
+    }
+
+    /**
+     * Release the section of a chunk.
+     *
+     * @return The data of the chunk if it was changed since it was last saved, otherwise null.
+     */
+    public ChunkStorage.ChunkData releaseChunk(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkSection> chunks = worlds.get(worldId);
+
+        if (chunks == null)
+            return null;
+
+        ChunkSection chunkSection = chunks.remove(packChunk(chunkX, chunkZ));
+
+        return chunkSection == null || !chunkSection.dirty ? null : chunkSection.toChunkData();
+    }
+
+    /**
+     * Collect all chunks that were changed since they were last saved, and mark them as saved.
+     */
+    public void collectDirtyChunks(DirtyChunkConsumer consumer) {
+        for (Map.Entry<UUID, LongObjectMap<ChunkSection>> worldEntry : worlds.entrySet()) {
+            UUID worldId = worldEntry.getKey();
+            LongObjectMap<ChunkSection> chunks = worldEntry.getValue();
+            chunks.forEach((chunkKey, chunkSection) -> {
+                if (chunkSection.dirty) {
+                    chunkSection.dirty = false;
+                    consumer.accept(worldId, getChunkX(chunkKey), getChunkZ(chunkKey), chunkSection.toChunkData());
+                }
+            });
+        }
+    }
+
+    private ChunkSection getSection(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkSection> chunks = worlds.get(worldId);
+        return chunks == null ? null : chunks.get(packChunk(chunkX, chunkZ));
+    }
+
+    private ChunkSection getOrCreateSection(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkSection> chunks = worlds.computeIfAbsent(worldId, w -> new LongObjectMap<>(64));
+        long chunkKey = packChunk(chunkX, chunkZ);
+
+        ChunkSection chunkSection = chunks.get(chunkKey);
+
+        if (chunkSection == null) {
+            chunkSection = new ChunkSection();
+            chunks.put(chunkKey, chunkSection);
+        }
+
+        return chunkSection;
+    }
+
+    public static long packBlock(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+    }
+
+    public static int getBlockX(long blockKey) {
+        return (int) (blockKey >> 38);
+    }
+
+    public static int getBlockY(long blockKey) {
+        return (int) (blockKey << 52 >> 52);
+    }
+
+    public static int getBlockZ(long blockKey) {
+        return (int) (blockKey << 26 >> 38);
+    }
+
+    public static long packChunk(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+    public static int getChunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    public static int getChunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    public interface DirtyChunkConsumer {
+
+        void accept(UUID worldId, int chunkX, int chunkZ, ChunkStorage.ChunkData chunkData);
+
+    }
+
+    private static final class ChunkSection {
+
+        private final LongIntMap blocks = new LongIntMap(16, NONE);
+        private boolean dirty = false;
+
+        ChunkStorage.ChunkData toChunkData() {
+            ChunkStorage.ChunkData chunkData = new ChunkStorage.ChunkData(blocks.size());
+            blocks.forEach((blockKey, blockType) -> chunkData.add(ChunkStorage.ChunkData.packPosition(
+                    getBlockX(blockKey), getBlockY(blockKey), getBlockZ(blockKey)), blockType));
+            return chunkData;
+        }
+
+    }
+
+}
@@ -5,64 +5,79 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.brewing.BrewBatch;
+import com.bgsoftware.superiorskyblock.missions.brewing.BrewedPotionsIndex;
+import com.bgsoftware.superiorskyblock.missions.brewing.PlaceholderTemplate;
+import com.bgsoftware.superiorskyblock.missions.brewing.PotionData;
+import com.bgsoftware.superiorskyblock.missions.brewing.PotionRequirements;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
+import com.bgsoftware.superiorskyblock.missions.common.CountersSerializer;
+import com.bgsoftware.superiorskyblock.missions.common.CountersTracker;
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Location;
+import org.bukkit.Chunk;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.BrewingStand;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.inventory.BrewEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.inventory.BrewerInventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.inventory.meta.PotionMeta;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.potion.Potion;
 import org.bukkit.potion.PotionType;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.logging.Level;
 
 @SuppressWarnings("unused")
 public final class BrewingMissions extends Mission<BrewingMissions.BrewingTracker> implements Listener {
 
     private static final SuperiorSkyblock superiorSkyblock = SuperiorSkyblockAPI.getSuperiorSkyblock();
 
-    private static final boolean isUsing18 = Bukkit.getServer().getClass().getPackage().getName().contains("1_8");
-
-    private static final Pattern percentagePattern = Pattern.compile("(.*)\\{percentage_(.+?)}(.*)"),
-            valuePattern = Pattern.compile("(.*)\\{value_(.+?)}(.*)");
+    // Lines of items come from the menus config, so the cache is only cleared if it grows unexpectedly.
+    private static final int MAXIMUM_PLACEHOLDER_TEMPLATES = 1024;
 
     private JavaPlugin plugin;
-    private final Map<List<PotionData>, Integer> requiredPotions = new HashMap<>();
-    private final Map<Location, boolean[]> trackedBrewItems = new HashMap<>();
+    private CompletionScheduler completionScheduler;
+    private PotionRequirements potionRequirements;
+    private Requirements<PotionData> requirements;
+    private final BrewedPotionsIndex brewedPotions = new BrewedPotionsIndex();
+    private BrewBatch brewBatch;
+    private final Map<String, PlaceholderTemplate> placeholderTemplates = new HashMap<>();
     private boolean resetAfterFinish;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
+        this.brewBatch = new BrewBatch(plugin, this::onPotionBrewed);
 
         if (!section.contains("required-potions"))
             throw new MissionLoadException("You must have the \"required-potions\" section in the config.");
 
+        Requirements.Builder<PotionData> requirementsBuilder = Requirements.newBuilder(PotionData::toString);
+        boolean hasRequiredPotions = false;
+
         for (String key : section.getConfigurationSection("required-potions").getKeys(false)) {
             List<PotionData> potionDataList = new ArrayList<>();
 
@@ -87,19 +102,23 @@ public final class BrewingMissions extends Mission<BrewingMissions.BrewingTracke
                 boolean extended = potionSection.getBoolean("extended", false);
                 boolean splash = potionSection.getBoolean("splash", false);
 
-                potionDataList.add(new PotionData(potionType, upgraded, extended, splash));
+                potionDataList.add(PotionData.of(potionType, upgraded, extended, splash));
             }
 
             if (!potionDataList.isEmpty()) {
                 int requiredAmount = section.getInt("required-potions." + key + ".amount");
-                requiredPotions.put(potionDataList, requiredAmount);
+                requirementsBuilder.addRequirement(potionDataList, false, requiredAmount);
+                hasRequiredPotions = true;
             }
         }
 
-        if (requiredPotions.isEmpty()) {
+        if (!hasRequiredPotions) {
             throw new MissionLoadException("There are no valid required potions for this mission.");
         }
 
+        potionRequirements = PotionRequirements.compile(requirementsBuilder.build());
+        requirements = potionRequirements.getRequirements();
+
         resetAfterFinish = section.getBoolean("reset-after-finish", false);
 
         Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -112,15 +131,7 @@ public final class BrewingMissions extends Mission<BrewingMissions.BrewingTracke
         if (brewingTracker == null)
             return 0.0;
 
-        int requiredPotions = 0;
-        int kills = 0;
-
-        for (Map.Entry<List<PotionData>, Integer> requiredPotion : this.requiredPotions.entrySet()) {
-            requiredPotions += requiredPotion.getValue();
-            kills += Math.min(brewingTracker.getBrews(requiredPotion.getKey()), requiredPotion.getValue());
-        }
-
-        return (double) kills / requiredPotions;
+        return brewingTracker.getProgress();
     }
 
     @Override
@@ -130,12 +141,7 @@ public final class BrewingMissions extends Mission<BrewingMissions.BrewingTracke
         if (brewingTracker == null)
             return 0;
 
-        int kills = 0;
-
-        for (Map.Entry<List<PotionData>, Integer> requiredEntity : this.requiredPotions.entrySet())
-            kills += Math.min(brewingTracker.getBrews(requiredEntity.getKey()), requiredEntity.getValue());
-
-        return kills;
+        return brewingTracker.getProgressValue();
     }
 
     @Override
@@ -151,32 +157,37 @@ public final class BrewingMissions extends Mission<BrewingMissions.BrewingTracke
 
     @Override
     public void saveProgress(ConfigurationSection section) {
-        for (Map.Entry<SuperiorPlayer, BrewingTracker> entry : entrySet()) {
-            String uuid = entry.getKey().getUniqueId().toString();
-            for (Map.Entry<PotionData, Integer> brokenEntry : entry.getValue().brewingTracker.entrySet()) {
-                section.set(uuid + "." + brokenEntry.getKey(), brokenEntry.getValue());
-            }
-        }
+        for (Map.Entry<SuperiorPlayer, BrewingTracker> entry : entrySet())
+            CountersSerializer.save(section, entry.getKey().getUniqueId().toString(), entry.getValue());
+
+        saveBrewedPotions();
     }
 
     @Override
     public void loadProgress(ConfigurationSection section) {
+        loadBrewedPotions();
+
         for (String uuid : section.getKeys(false)) {
-            BrewingTracker brewingTracker = new BrewingTracker();
+            BrewingTracker brewingTracker = new BrewingTracker(potionRequirements);
             UUID playerUUID = UUID.fromString(uuid);
             SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(playerUUID);
 
             insertData(superiorPlayer, brewingTracker);
 
+            if (CountersSerializer.load(section, uuid, brewingTracker))
+                continue;
+
             for (String key : section.getConfigurationSection(uuid).getKeys(false)) {
-                brewingTracker.brewingTracker.put(PotionData.fromString(key), section.getInt(uuid + "." + key));
+                int slot = potionRequirements.getSlot(PotionData.fromString(key));
+                if (slot != Requirements.NO_SLOT)
+                    brewingTracker.track(slot, section.getInt(uuid + "." + key));
             }
         }
     }
 
     @Override
     public void formatItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        BrewingTracker killsTracker = getOrCreate(superiorPlayer, s -> new BrewingTracker());
+        BrewingTracker killsTracker = getOrCreate(superiorPlayer, s -> new BrewingTracker(potionRequirements));
 
         ItemMeta itemMeta = itemStack.getItemMeta();
 
@@ -195,22 +206,7 @@ public final class BrewingMissions extends Mission<BrewingMissions.BrewingTracke
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBrew(BrewEvent e) {
-        ItemStack[] originalResultItems = new ItemStack[3];
-        for (int i = 0; i < 3; ++i) {
-            ItemStack resultItem = e.getContents().getItem(i);
-            if (resultItem != null) {
-                originalResultItems[i] = resultItem.clone();
-            }
-        }
-
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            for (int i = 0; i < 3; ++i) {
-                ItemStack resultItem = e.getContents().getItem(i);
-                if (resultItem != null && !resultItem.isSimilar(originalResultItems[i]) && isMissionBrewing(resultItem)) {
-                    trackedBrewItems.computeIfAbsent(e.getBlock().getLocation(), block -> new boolean[3])[i] = true;
-                }
-            }
-        }, 1L);
+        brewBatch.add(e.getBlock(), e.getContents());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -235,189 +231,123 @@ public final class BrewingMissions extends Mission<BrewingMissions.BrewingTracke
         handleBrewing(e.getPlayer(), brewingStand.getInventory(), slot -> true);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(EntityExplodeEvent e) {
+        if (brewedPotions.size() == 0)
+            return;
+
+        UUID worldId = e.getLocation().getWorld().getUID();
+
+        for (Block block : e.blockList()) {
+            if (block.getType() == Material.BREWING_STAND)
+                brewedPotions.remove(worldId, block.getX(), block.getY(), block.getZ());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        Chunk chunk = e.getChunk();
+        brewedPotions.pruneChunk(e.getWorld().getUID(), chunk.getX(), chunk.getZ(),
+                (x, y, z) -> chunk.getBlock(x & 15, y, z & 15).getType() == Material.BREWING_STAND);
+    }
+
     private void handleBrewing(Player player, BrewerInventory inventory, Predicate<Integer> checkSlot) {
         Block block = inventory.getHolder().getBlock();
+        UUID worldId = block.getWorld().getUID();
 
-        boolean[] brewItems = this.trackedBrewItems.get(block.getLocation());
+        int brewedSlots = brewedPotions.getBrewedSlots(worldId, block.getX(), block.getY(), block.getZ());
 
-        if (brewItems == null) {
+        if (brewedSlots == 0) {
             return;
         }
 
         SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(player);
 
-        for (int i = 0; i < 3; ++i) {
-            if (checkSlot.test(i) && brewItems[i]) {
-                brewItems[i] = false;
+        for (int i = 0; i < BrewBatch.RESULT_SLOTS; ++i) {
+            if (checkSlot.test(i) && (brewedSlots & 1 << i) != 0) {
+                brewedSlots &= ~(1 << i);
 
                 ItemStack brewItem = inventory.getItem(i);
+                PotionData potionData = getRequiredPotion(brewItem);
 
-                BrewingTracker brewingTracker = getOrCreate(superiorPlayer, s -> new BrewingTracker());
-                brewingTracker.track(brewItem, brewItem.getAmount());
+                if (potionData != null) {
+                    BrewingTracker brewingTracker = getOrCreate(superiorPlayer, s -> new BrewingTracker(potionRequirements));
+                    brewingTracker.track(potionData, brewItem.getAmount());
+                }
             }
         }
 
-        if (!brewItems[0] && !brewItems[1] && !brewItems[2])
-            this.trackedBrewItems.remove(block.getLocation());
+        brewedPotions.setBrewedSlots(worldId, block.getX(), block.getY(), block.getZ(), brewedSlots);
 
         if (!superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
             return;
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(_player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        completionScheduler.markDirty(superiorPlayer);
     }
 
-    private boolean isMissionBrewing(ItemStack itemStack) {
-        PotionData potionData = PotionData.fromItemStack(itemStack);
-
-        if (potionData == null)
-            return false;
-
-        for (List<PotionData> requiredPotion : requiredPotions.keySet()) {
-            if (requiredPotion.contains(potionData))
-                return true;
-        }
-
-        return false;
+    private void onPotionBrewed(Block block, int slot, PotionData potionData) {
+        if (potionRequirements.getSlot(potionData) != Requirements.NO_SLOT)
+            brewedPotions.addBrewedSlot(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ(), slot);
     }
 
-    private String parsePlaceholders(BrewingTracker killsTracker, String line) {
-        Matcher matcher = percentagePattern.matcher(line);
-
-        if (matcher.matches()) {
-            String requiredPotionType = matcher.group(2).toUpperCase();
-
-            try {
-                PotionData potionData = PotionData.fromString(requiredPotionType);
-
-                Optional<Map.Entry<List<PotionData>, Integer>> entry = requiredPotions.entrySet().stream()
-                        .filter(e -> e.getKey().contains(potionData)).findAny();
-
-                if (entry.isPresent()) {
-                    line = line.replace("{percentage_" + matcher.group(2) + "}",
-                            "" + (killsTracker.getBrews(Collections.singletonList(potionData)) * 100) / entry.get().getValue());
-                }
-            } catch (IllegalArgumentException ignored) {
-            }
-        }
-
-        if ((matcher = valuePattern.matcher(line)).matches()) {
-            String requiredPotionType = matcher.group(2).toUpperCase();
-
-            try {
-                PotionData potionData = PotionData.fromString(requiredPotionType);
-
-                Optional<Map.Entry<List<PotionData>, Integer>> entry = requiredPotions.entrySet().stream()
-                        .filter(e -> e.getKey().contains(potionData)).findFirst();
-                if (entry.isPresent()) {
-                    line = line.replace("{value_" + matcher.group(2) + "}",
-                            "" + killsTracker.getBrews(Collections.singletonList(potionData)));
-                }
-            } catch (IllegalArgumentException ignored) {
-            }
-        }
-
-        return ChatColor.translateAlternateColorCodes('&', line);
+    @Nullable
+    private PotionData getRequiredPotion(ItemStack itemStack) {
+        PotionData potionData = itemStack == null ? null : PotionData.fromItemStack(itemStack);
+        return potionData == null || potionRequirements.getSlot(potionData) == Requirements.NO_SLOT ? null : potionData;
     }
 
-    public static class BrewingTracker {
-
-        private final Map<PotionData, Integer> brewingTracker = new HashMap<>();
+    private void saveBrewedPotions() {
+        YamlConfiguration config = new YamlConfiguration();
+        brewedPotions.save(config);
 
-        void track(ItemStack brewing, int amount) {
-            PotionData potionData = PotionData.fromItemStack(brewing);
-            int newAmount = amount + brewingTracker.getOrDefault(potionData, 0);
-            brewingTracker.put(potionData, newAmount);
+        try {
+            config.save(getBrewedPotionsFile());
+        } catch (IOException error) {
+            plugin.getLogger().log(Level.WARNING, "Failed to save brewed potions of " + getName() + ":", error);
         }
-
-        int getBrews(List<BrewingMissions.PotionData> potions) {
-            int amount = 0;
-
-            for (Map.Entry<PotionData, Integer> potionData : brewingTracker.entrySet()) {
-                if (potions.contains(potionData.getKey()))
-                    amount += potionData.getValue();
-            }
-
-            return amount;
-        }
-
     }
 
-    private static class PotionData {
+    private void loadBrewedPotions() {
+        brewedPotions.clear();
 
-        private final PotionType potionType;
-        private final boolean upgraded;
-        private final boolean extended;
-        private final boolean splash;
-
-        public PotionData(PotionType potionType, boolean upgraded, boolean extended, boolean splash) {
-            this.potionType = potionType;
-            this.upgraded = upgraded;
-            this.extended = extended;
-            this.splash = splash;
-        }
-
-        @Nullable
-        public static PotionData fromItemStack(ItemStack itemStack) {
-            return isUsing18 ? fromItemStack18(itemStack) : fromItemStack19(itemStack);
-        }
-
-        public static PotionData fromString(String line) {
-            String[] sections = line.split(";");
-
-            PotionType potionType;
+        File file = getBrewedPotionsFile();
+        if (file.exists())
+            brewedPotions.load(YamlConfiguration.loadConfiguration(file));
+    }
 
-            try {
-                potionType = PotionType.valueOf(sections[0]);
-            } catch (IllegalArgumentException ex) {
-                throw new IllegalArgumentException("This is not a valid potion data.");
-            }
+    private File getBrewedPotionsFile() {
+        return new File(plugin.getDataFolder(), "datastore/brewed-potions/" + getName() + ".yml");
+    }
 
-            boolean upgraded = sections.length >= 2 && Boolean.parseBoolean(sections[1]);
-            boolean extended = sections.length >= 3 && Boolean.parseBoolean(sections[2]);
-            boolean splash = sections.length >= 4 && Boolean.parseBoolean(sections[3]);
+    private String parsePlaceholders(BrewingTracker brewingTracker, String line) {
+        PlaceholderTemplate placeholderTemplate = placeholderTemplates.get(line);
 
-            return new PotionData(potionType, upgraded, extended, splash);
+        if (placeholderTemplate == null) {
+            if (placeholderTemplates.size() >= MAXIMUM_PLACEHOLDER_TEMPLATES)
+                placeholderTemplates.clear();
+            placeholderTemplate = PlaceholderTemplate.parse(line, requirements);
+            placeholderTemplates.put(line, placeholderTemplate);
         }
 
-        private static PotionData fromItemStack19(ItemStack itemStack) {
-            ItemMeta itemMeta = itemStack.getItemMeta();
-
-            if (!(itemMeta instanceof PotionMeta)) {
-                return null;
-            }
-
-            PotionMeta potionMeta = (PotionMeta) itemMeta;
-            org.bukkit.potion.PotionData potionData = potionMeta.getBasePotionData();
-
-            return new PotionData(potionData.getType(), potionData.isUpgraded(), potionData.isExtended(),
-                    itemStack.getType() == Material.SPLASH_POTION);
-        }
+        return placeholderTemplate.render(brewingTracker);
+    }
 
-        @SuppressWarnings("deprecation")
-        private static PotionData fromItemStack18(ItemStack itemStack) {
-            Potion potion = Potion.fromItemStack(itemStack);
-            return new PotionData(potion.getType(), potion.getLevel() > 1, potion.hasExtendedDuration(), potion.isSplash());
-        }
+    public static class BrewingTracker extends CountersTracker {
 
-        @Override
-        public String toString() {
-            return potionType.name() + ";" + upgraded + ";" + extended + ";" + splash;
-        }
+        private final PotionRequirements potionRequirements;
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            PotionData that = (PotionData) o;
-            return upgraded == that.upgraded && extended == that.extended && splash == that.splash && potionType == that.potionType;
+        BrewingTracker(PotionRequirements potionRequirements) {
+            super(potionRequirements.getRequirements());
+            this.potionRequirements = potionRequirements;
         }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(potionType, upgraded, extended, splash);
+        /**
+         * Track brewed potions, if they are required by the mission.
+         */
+        public void track(PotionData potionData, int amount) {
+            int slot = potionRequirements.getSlot(potionData);
+            if (slot != Requirements.NO_SLOT)
+                track(slot, amount);
         }
 
     }
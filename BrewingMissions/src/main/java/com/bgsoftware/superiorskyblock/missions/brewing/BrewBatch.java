@@ -0,0 +1,86 @@
+package com.bgsoftware.superiorskyblock.missions.brewing;
+
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.inventory.BrewerInventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.Arrays;
+
+/**
+ * Collects the brewing stands that brew in the same tick, and finds the potions they brewed in one task on
+ * the next tick, once the results were placed in the stands.
+ * Potions are compared by their ordinals, so the contents of the stands are not cloned.
+ */
+public final class BrewBatch {
+
+    public static final int RESULT_SLOTS = 3;
+
+    private static final int NO_POTION = -1;
+
+    private final JavaPlugin plugin;
+    private final BrewConsumer consumer;
+
+    private Block[] blocks = new Block[16];
+    private BrewerInventory[] inventories = new BrewerInventory[16];
+    private int[] originalPotions = new int[16 * RESULT_SLOTS];
+    private int size = 0;
+
+    public BrewBatch(JavaPlugin plugin, BrewConsumer consumer) {
+        this.plugin = plugin;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Add a brewing stand that is about to brew, with its contents before the results are placed.
+     */
+    public void add(Block block, BrewerInventory inventory) {
+        if (size == 0)
+            Bukkit.getScheduler().runTaskLater(plugin, this::flush, 1L);
+
+        if (size == blocks.length) {
+            blocks = Arrays.copyOf(blocks, size * 2);
+            inventories = Arrays.copyOf(inventories, size * 2);
+            originalPotions = Arrays.copyOf(originalPotions, size * 2 * RESULT_SLOTS);
+        }
+
+        blocks[size] = block;
+        inventories[size] = inventory;
+
+        for (int slot = 0; slot < RESULT_SLOTS; ++slot)
+            originalPotions[size * RESULT_SLOTS + slot] = getPotionOrdinal(inventory.getItem(slot));
+
+        ++size;
+    }
+
+    private void flush() {
+        try {
+            for (int i = 0; i < size; ++i) {
+                BrewerInventory inventory = inventories[i];
+
+                for (int slot = 0; slot < RESULT_SLOTS; ++slot) {
+                    int potion = getPotionOrdinal(inventory.getItem(slot));
+                    if (potion != NO_POTION && potion != originalPotions[i * RESULT_SLOTS + slot])
+                        consumer.accept(blocks[i], slot, PotionData.fromOrdinal(potion));
+                }
+            }
+        } finally {
+            Arrays.fill(blocks, 0, size, null);
+            Arrays.fill(inventories, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private static int getPotionOrdinal(ItemStack itemStack) {
+        PotionData potionData = itemStack == null ? null : PotionData.fromItemStack(itemStack);
+        return potionData == null ? NO_POTION : potionData.ordinal();
+    }
+
+    public interface BrewConsumer {
+
+        void accept(Block block, int slot, PotionData potionData);
+
+    }
+
+}
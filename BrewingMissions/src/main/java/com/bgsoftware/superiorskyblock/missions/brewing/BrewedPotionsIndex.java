@@ -0,0 +1,222 @@
+package com.bgsoftware.superiorskyblock.missions.brewing;
+
+import com.bgsoftware.superiorskyblock.missions.common.ChunkStorage;
+import com.bgsoftware.superiorskyblock.missions.common.LongIntMap;
+import com.bgsoftware.superiorskyblock.missions.common.LongObjectMap;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Index of the brewing stands that hold brewed potions that were not collected yet, split by world and chunk.
+ * Every stand is keyed by its position inside its chunk, and stores a mask of its result slots that hold
+ * brewed potions.
+ */
+public final class BrewedPotionsIndex {
+
+    private static final int NO_SLOTS = 0;
+    private static final int ALL_SLOTS = (1 << BrewBatch.RESULT_SLOTS) - 1;
+
+    private final Map<UUID, LongObjectMap<LongIntMap>> worlds = new HashMap<>();
+    private int size = 0;
+
+    // Reused between prunes of chunks, as stands are removed after going over the stands of a chunk.
+    private long[] prunedPositions = new long[16];
+    private int prunedCount = 0;
+
+    /**
+     * Get the mask of the result slots of a stand that hold brewed potions.
+     */
+    public int getBrewedSlots(UUID worldId, int x, int y, int z) {
+        LongIntMap stands = getStands(worldId, x >> 4, z >> 4);
+        return stands == null ? NO_SLOTS : stands.get(ChunkStorage.ChunkData.packPosition(x, y, z));
+    }
+
+    public void addBrewedSlot(UUID worldId, int x, int y, int z, int slot) {
+        LongIntMap stands = getOrCreateStands(worldId, x >> 4, z >> 4);
+        int position = ChunkStorage.ChunkData.packPosition(x, y, z);
+        int brewedSlots = stands.get(position);
+
+        if (brewedSlots == NO_SLOTS)
+            size++;
+
+        stands.put(position, brewedSlots | 1 << slot);
+    }
+
+    /**
+     * Set the mask of the result slots of a stand that hold brewed potions, removing the stand if it is empty.
+     */
+    public void setBrewedSlots(UUID worldId, int x, int y, int z, int brewedSlots) {
+        if (brewedSlots == NO_SLOTS) {
+            remove(worldId, x, y, z);
+            return;
+        }
+
+        LongIntMap stands = getOrCreateStands(worldId, x >> 4, z >> 4);
+
+        if (stands.put(ChunkStorage.ChunkData.packPosition(x, y, z), brewedSlots) == NO_SLOTS)
+            size++;
+    }
+
+    /**
+     * @return The mask of the result slots of the removed stand that held brewed potions.
+     */
+    public int remove(UUID worldId, int x, int y, int z) {
+        LongObjectMap<LongIntMap> chunks = worlds.get(worldId);
+
+        if (chunks == null)
+            return NO_SLOTS;
+
+        long chunkKey = packChunk(x >> 4, z >> 4);
+        LongIntMap stands = chunks.get(chunkKey);
+
+        if (stands == null)
+            return NO_SLOTS;
+
+        int brewedSlots = stands.remove(ChunkStorage.ChunkData.packPosition(x, y, z));
+
+        if (brewedSlots != NO_SLOTS) {
+            size--;
+            removeIfEmpty(worldId, chunks, chunkKey, stands);
+        }
+
+        return brewedSlots;
+    }
+
+    /**
+     * Remove the stands of a chunk that were removed without being collected.
+     */
+    public void pruneChunk(UUID worldId, int chunkX, int chunkZ, StandFilter standFilter) {
+        LongObjectMap<LongIntMap> chunks = worlds.get(worldId);
+
+        if (chunks == null)
+            return;
+
+        long chunkKey = packChunk(chunkX, chunkZ);
+        LongIntMap stands = chunks.get(chunkKey);
+
+        if (stands == null)
+            return;
+
+        if (prunedPositions.length < stands.size())
+            prunedPositions = new long[Math.max(stands.size(), prunedPositions.length * 2)];
+
+        prunedCount = 0;
+
+        stands.forEach((position, brewedSlots) -> {
+            if (!standFilter.isStand(ChunkStorage.ChunkData.getX(chunkX, (int) position),
+                    ChunkStorage.ChunkData.getY((int) position), ChunkStorage.ChunkData.getZ(chunkZ, (int) position)))
+                prunedPositions[prunedCount++] = position;
+        });
+
+        for (int i = 0; i < prunedCount; ++i)
+            stands.remove(prunedPositions[i]);
+
+        size -= prunedCount;
+
+        removeIfEmpty(worldId, chunks, chunkKey, stands);
+    }
+
+    /**
+     * Get the amount of stands that hold brewed potions.
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        worlds.clear();
+        size = 0;
+    }
+
+    /**
+     * Save all stands, as a list of "x;y;z;slots" entries for every world.
+     */
+    public void save(ConfigurationSection section) {
+        for (Map.Entry<UUID, LongObjectMap<LongIntMap>> worldEntry : worlds.entrySet()) {
+            List<String> stands = new ArrayList<>();
+
+            worldEntry.getValue().forEach((chunkKey, chunkStands) -> {
+                int chunkX = (int) (chunkKey >> 32), chunkZ = (int) chunkKey;
+                chunkStands.forEach((position, brewedSlots) -> stands.add(
+                        ChunkStorage.ChunkData.getX(chunkX, (int) position) + ";" +
+                                ChunkStorage.ChunkData.getY((int) position) + ";" +
+                                ChunkStorage.ChunkData.getZ(chunkZ, (int) position) + ";" + brewedSlots));
+            });
+
+            section.set(worldEntry.getKey().toString(), stands);
+        }
+    }
+
+    public void load(ConfigurationSection section) {
+        for (String worldKey : section.getKeys(false)) {
+            UUID worldId;
+
+            try {
+                worldId = UUID.fromString(worldKey);
+            } catch (IllegalArgumentException error) {
+                continue;
+            }
+
+            for (String stand : section.getStringList(worldKey)) {
+                String[] sections = stand.split(";");
+
+                if (sections.length != 4)
+                    continue;
+
+                try {
+                    setBrewedSlots(worldId, Integer.parseInt(sections[0]), Integer.parseInt(sections[1]),
+                            Integer.parseInt(sections[2]), Integer.parseInt(sections[3]) & ALL_SLOTS);
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+    }
+
+    private LongIntMap getStands(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<LongIntMap> chunks = worlds.get(worldId);
+        return chunks == null ? null : chunks.get(packChunk(chunkX, chunkZ));
+    }
+
+    private LongIntMap getOrCreateStands(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<LongIntMap> chunks = worlds.computeIfAbsent(worldId, w -> new LongObjectMap<>(64));
+        long chunkKey = packChunk(chunkX, chunkZ);
+
+        LongIntMap stands = chunks.get(chunkKey);
+
+        if (stands == null) {
+            stands = new LongIntMap(4, NO_SLOTS);
+            chunks.put(chunkKey, stands);
+        }
+
+        return stands;
+    }
+
+    private void removeIfEmpty(UUID worldId, LongObjectMap<LongIntMap> chunks, long chunkKey, LongIntMap stands) {
+        if (!stands.isEmpty())
+            return;
+
+        chunks.remove(chunkKey);
+
+        if (chunks.isEmpty())
+            worlds.remove(worldId);
+    }
+
+    private static long packChunk(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+    public interface StandFilter {
+
+        /**
+         * @return Whether the block at the given position is still a brewing stand.
+         */
+        boolean isStand(int x, int y, int z);
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.bgsoftware.superiorskyblock.missions.brewing;
+
+import com.bgsoftware.superiorskyblock.missions.common.CountersTracker;
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A line of a mission item, parsed once into literal text and placeholders that are bound to the slots and
+ * requirements they show, so rendering it only inserts the numbers of a tracker.
+ * Only the last "{percentage_...}" and the last "{value_...}" placeholders of a line are bound, and all
+ * occurrences of each of them are replaced.
+ */
+public final class PlaceholderTemplate {
+
+    private static final Pattern percentagePattern = Pattern.compile("(.*)\\{percentage_(.+?)}(.*)"),
+            valuePattern = Pattern.compile("(.*)\\{value_(.+?)}(.*)");
+
+    private static final int PERCENTAGE = 0;
+    private static final int VALUE = 1;
+
+    private final String[] literals;
+    private final int[] placeholders;
+    private final int[] slots;
+    private final int[] requiredAmounts;
+    // Color codes are translated after rendering only if a literal ends with a code char that a number follows.
+    private final boolean translateAfterRender;
+
+    private PlaceholderTemplate(String[] literals, int[] placeholders, int[] slots, int[] requiredAmounts,
+                                boolean translateAfterRender) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.slots = slots;
+        this.requiredAmounts = requiredAmounts;
+        this.translateAfterRender = translateAfterRender;
+    }
+
+    public static PlaceholderTemplate parse(String line, Requirements<PotionData> requirements) {
+        Binding percentage = bind(percentagePattern.matcher(line), "{percentage_", requirements);
+
+        // The value placeholder is looked for after the percentage placeholder was replaced by its number.
+        Binding value = bind(valuePattern.matcher(percentage == null ? line : line.replace(percentage.placeholder, "0")),
+                "{value_", requirements);
+
+        List<String> literals = new ArrayList<>();
+        List<Binding> bindings = new ArrayList<>();
+        int literalStart = 0;
+
+        while (true) {
+            int percentageIndex = percentage == null ? -1 : line.indexOf(percentage.placeholder, literalStart);
+            int valueIndex = value == null ? -1 : line.indexOf(value.placeholder, literalStart);
+
+            Binding binding;
+            int index;
+
+            if (percentageIndex != -1 && (valueIndex == -1 || percentageIndex <= valueIndex)) {
+                binding = percentage;
+                index = percentageIndex;
+            } else if (valueIndex != -1) {
+                binding = value;
+                index = valueIndex;
+            } else {
+                break;
+            }
+
+            literals.add(line.substring(literalStart, index));
+            bindings.add(binding);
+            literalStart = index + binding.placeholder.length();
+        }
+
+        literals.add(line.substring(literalStart));
+
+        boolean translateAfterRender = false;
+        for (int i = 0; i < bindings.size() && !translateAfterRender; ++i)
+            translateAfterRender = literals.get(i).endsWith("&");
+
+        String[] literalsArray = new String[literals.size()];
+        for (int i = 0; i < literalsArray.length; ++i) {
+            String literal = literals.get(i);
+            literalsArray[i] = translateAfterRender ? literal : ChatColor.translateAlternateColorCodes('&', literal);
+        }
+
+        int[] placeholders = new int[bindings.size()];
+        int[] slots = new int[bindings.size()];
+        int[] requiredAmounts = new int[bindings.size()];
+
+        for (int i = 0; i < placeholders.length; ++i) {
+            Binding binding = bindings.get(i);
+            placeholders[i] = binding == percentage ? PERCENTAGE : VALUE;
+            slots[i] = binding.slot;
+            requiredAmounts[i] = requirements.getRequiredAmount(binding.requirement);
+        }
+
+        return new PlaceholderTemplate(literalsArray, placeholders, slots, requiredAmounts, translateAfterRender);
+    }
+
+    public String render(CountersTracker tracker) {
+        if (placeholders.length == 0)
+            return literals[0];
+
+        StringBuilder line = new StringBuilder(literals[0]);
+
+        for (int i = 0; i < placeholders.length; ++i) {
+            int count = tracker.getCount(slots[i]);
+            line.append(placeholders[i] == PERCENTAGE ? (count * 100) / requiredAmounts[i] : count);
+            line.append(literals[i + 1]);
+        }
+
+        return translateAfterRender ? ChatColor.translateAlternateColorCodes('&', line.toString()) : line.toString();
+    }
+
+    private static Binding bind(Matcher matcher, String placeholderPrefix, Requirements<PotionData> requirements) {
+        if (!matcher.matches())
+            return null;
+
+        PotionData potionData;
+
+        try {
+            potionData = PotionData.fromString(matcher.group(2).toUpperCase());
+        } catch (IllegalArgumentException error) {
+            return null;
+        }
+
+        int requirement = requirements.getRequirement(potionData);
+
+        if (requirement == Requirements.NO_SLOT)
+            return null;
+
+        return new Binding(placeholderPrefix + matcher.group(2) + "}", requirements.getSlot(potionData), requirement);
+    }
+
+    private static final class Binding {
+
+        private final String placeholder;
+        private final int slot;
+        private final int requirement;
+
+        Binding(String placeholder, int slot, int requirement) {
+            this.placeholder = placeholder;
+            this.slot = slot;
+            this.requirement = requirement;
+        }
+
+    }
+
+}
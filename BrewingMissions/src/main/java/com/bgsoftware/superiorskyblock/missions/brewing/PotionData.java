@@ -0,0 +1,158 @@
+package com.bgsoftware.superiorskyblock.missions.brewing;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.PotionMeta;
+import org.bukkit.potion.Potion;
+import org.bukkit.potion.PotionType;
+
+import javax.annotation.Nullable;
+
+/**
+ * The kind of a brewed potion.
+ * All possible potion datas are created once, so they are compared by identity and are indexed by their
+ * ordinal, which packs the potion type with the upgraded, extended and splash flags.
+ */
+public final class PotionData {
+
+    private static final boolean isUsing18 = Bukkit.getServer().getClass().getPackage().getName().contains("1_8");
+
+    private static final int UPGRADED_BIT = 1 << 2;
+    private static final int EXTENDED_BIT = 1 << 1;
+    private static final int SPLASH_BIT = 1;
+
+    private static final PotionData[] VALUES = createValues();
+
+    private final PotionType potionType;
+    private final boolean upgraded;
+    private final boolean extended;
+    private final boolean splash;
+    private final int ordinal;
+    private final String name;
+
+    private PotionData(PotionType potionType, boolean upgraded, boolean extended, boolean splash, int ordinal) {
+        this.potionType = potionType;
+        this.upgraded = upgraded;
+        this.extended = extended;
+        this.splash = splash;
+        this.ordinal = ordinal;
+        this.name = potionType.name() + ";" + upgraded + ";" + extended + ";" + splash;
+    }
+
+    public static PotionData of(PotionType potionType, boolean upgraded, boolean extended, boolean splash) {
+        return VALUES[getOrdinal(potionType, upgraded, extended, splash)];
+    }
+
+    public static PotionData fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Get the amount of possible potion datas, which is bigger than all of their ordinals.
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    @Nullable
+    public static PotionData fromItemStack(ItemStack itemStack) {
+        return isUsing18 ? fromItemStack18(itemStack) : fromItemStack19(itemStack);
+    }
+
+    public static PotionData fromString(String line) {
+        String[] sections = line.split(";");
+
+        PotionType potionType;
+
+        try {
+            potionType = PotionType.valueOf(sections[0]);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("This is not a valid potion data.");
+        }
+
+        boolean upgraded = sections.length >= 2 && Boolean.parseBoolean(sections[1]);
+        boolean extended = sections.length >= 3 && Boolean.parseBoolean(sections[2]);
+        boolean splash = sections.length >= 4 && Boolean.parseBoolean(sections[3]);
+
+        return of(potionType, upgraded, extended, splash);
+    }
+
+    public PotionType getPotionType() {
+        return potionType;
+    }
+
+    public boolean isUpgraded() {
+        return upgraded;
+    }
+
+    public boolean isExtended() {
+        return extended;
+    }
+
+    public boolean isSplash() {
+        return splash;
+    }
+
+    public int ordinal() {
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    @Override
+    public int hashCode() {
+        return ordinal;
+    }
+
+    private static PotionData fromItemStack19(ItemStack itemStack) {
+        ItemMeta itemMeta = itemStack.getItemMeta();
+
+        if (!(itemMeta instanceof PotionMeta)) {
+            return null;
+        }
+
+        PotionMeta potionMeta = (PotionMeta) itemMeta;
+        org.bukkit.potion.PotionData potionData = potionMeta.getBasePotionData();
+
+        return of(potionData.getType(), potionData.isUpgraded(), potionData.isExtended(),
+                itemStack.getType() == Material.SPLASH_POTION);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static PotionData fromItemStack18(ItemStack itemStack) {
+        Potion potion = Potion.fromItemStack(itemStack);
+
+        if (potion.getType() == null)
+            return null;
+
+        return of(potion.getType(), potion.getLevel() > 1, potion.hasExtendedDuration(), potion.isSplash());
+    }
+
+    private static int getOrdinal(PotionType potionType, boolean upgraded, boolean extended, boolean splash) {
+        return potionType.ordinal() << 3 | (upgraded ? UPGRADED_BIT : 0) | (extended ? EXTENDED_BIT : 0) |
+                (splash ? SPLASH_BIT : 0);
+    }
+
+    private static PotionData[] createValues() {
+        PotionType[] potionTypes = PotionType.values();
+        PotionData[] values = new PotionData[potionTypes.length << 3];
+
+        for (PotionType potionType : potionTypes) {
+            for (int flags = 0; flags < 8; ++flags) {
+                boolean upgraded = (flags & UPGRADED_BIT) != 0;
+                boolean extended = (flags & EXTENDED_BIT) != 0;
+                boolean splash = (flags & SPLASH_BIT) != 0;
+                int ordinal = getOrdinal(potionType, upgraded, extended, splash);
+                values[ordinal] = new PotionData(potionType, upgraded, extended, splash, ordinal);
+            }
+        }
+
+        return values;
+    }
+
+}
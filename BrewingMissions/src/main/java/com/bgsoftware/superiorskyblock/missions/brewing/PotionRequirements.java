@@ -0,0 +1,35 @@
+package com.bgsoftware.superiorskyblock.missions.brewing;
+
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
+
+/**
+ * Lookup table of the slots of the required potions of a mission, indexed by potion data ordinal.
+ */
+public final class PotionRequirements {
+
+    private final Requirements<PotionData> requirements;
+    private final int[] potionSlots;
+
+    private PotionRequirements(Requirements<PotionData> requirements) {
+        this.requirements = requirements;
+        this.potionSlots = new int[PotionData.count()];
+    }
+
+    public static PotionRequirements compile(Requirements<PotionData> requirements) {
+        PotionRequirements potionRequirements = new PotionRequirements(requirements);
+
+        for (int ordinal = 0; ordinal < potionRequirements.potionSlots.length; ++ordinal)
+            potionRequirements.potionSlots[ordinal] = requirements.getSlot(PotionData.fromOrdinal(ordinal));
+
+        return potionRequirements;
+    }
+
+    public Requirements<PotionData> getRequirements() {
+        return requirements;
+    }
+
+    public int getSlot(PotionData potionData) {
+        return potionSlots[potionData.ordinal()];
+    }
+
+}
@@ -0,0 +1,468 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists per-chunk data into region files, one folder for each world.
+ * Values are stored by their names, so records stay valid when the values are numbered differently.
+ * Reads and encoding are done on the caller thread, while writes are queued to a single writer thread.
+ * Reads do not wait for records to be written or regions to be compacted by the writer thread.
+ * Records that are queued and not written yet are read instead of the stored ones.
+ */
+public final class ChunkStorage {
+
+    public static final int NONE = -1;
+
+    private static final int MAXIMUM_OPEN_REGIONS = 256;
+    private static final int MAXIMUM_MISSING_REGIONS = 4096;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    // Shared by all storages, and created again if a storage is used after the writer was shut down.
+    private static ExecutorService writerExecutor;
+
+    private final Map<String, ChunkStorageRegion> openRegions = new LinkedHashMap<String, ChunkStorageRegion>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ChunkStorageRegion> eldest) {
+            // Regions that are read or written right now are kept open until a later region is opened.
+            if (size() <= MAXIMUM_OPEN_REGIONS || eldest.getValue().users > 0)
+                return false;
+
+            closeRegion(eldest.getValue());
+            return true;
+        }
+    };
+
+    // Regions that have no file, so loading chunks in them does not check the file system every time.
+    // Guarded by the lock of the open regions.
+    private final Set<String> missingRegions = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAXIMUM_MISSING_REGIONS;
+        }
+    });
+
+    private final Map<ChunkKey, PendingRecord> pendingRecords = new ConcurrentHashMap<>();
+    private final Set<ChunkKey> unreadableChunks = ConcurrentHashMap.newKeySet();
+    private final File folder;
+    private final String name;
+    private final Logger logger;
+
+    public ChunkStorage(File folder, String name, Logger logger) {
+        this.folder = folder;
+        this.name = name;
+        this.logger = logger;
+    }
+
+    /**
+     * Read the data of a chunk.
+     * If the stored record of the chunk cannot be read, the chunk is not written until it is read successfully,
+     * so the stored record is not overridden by data that is missing its values.
+     *
+     * @return The data of the chunk, or null if it has no data or could not be read.
+     */
+    public ChunkData readChunk(UUID worldId, int chunkX, int chunkZ, Palette palette) {
+        ChunkKey chunkKey = new ChunkKey(worldId, chunkX, chunkZ);
+
+        try {
+            ChunkData chunkData = readRecord(chunkKey, palette);
+            unreadableChunks.remove(chunkKey);
+            return chunkData;
+        } catch (IOException error) {
+            unreadableChunks.add(chunkKey);
+            logger.log(Level.WARNING, "Failed to read " + name + " of chunk " + chunkX + ", " + chunkZ +
+                    ", it will not be saved until it is read:", error);
+            return null;
+        }
+    }
+
+    /**
+     * Queue the data of a chunk to be written.
+     * The data is encoded before this method returns, so the palette is only used on the caller thread.
+     */
+    public void writeChunkAsync(UUID worldId, int chunkX, int chunkZ, ChunkData chunkData, Palette palette) {
+        ChunkKey chunkKey = new ChunkKey(worldId, chunkX, chunkZ);
+
+        if (unreadableChunks.contains(chunkKey)) {
+            logger.warning("Skipped writing " + name + " of chunk " + chunkX + ", " + chunkZ +
+                    ", as its stored data could not be read.");
+            return;
+        }
+
+        byte[] record;
+
+        try {
+            record = chunkData.size() == 0 ? null : encode(chunkData, palette);
+        } catch (IOException error) {
+            logger.log(Level.WARNING, "Failed to encode " + name + " of chunk " + chunkX + ", " + chunkZ + ":", error);
+            return;
+        }
+
+        PendingRecord pendingRecord = new PendingRecord(record);
+        pendingRecords.put(chunkKey, pendingRecord);
+
+        getWriterExecutor().execute(() -> {
+            try {
+                ChunkStorageRegion region = acquireRegion(worldId, chunkX >> 5, chunkZ >> 5, record != null);
+                if (region != null) {
+                    try {
+                        region.write(getLocalIndex(chunkX, chunkZ), record);
+                    } finally {
+                        releaseRegion(region);
+                    }
+                }
+            } catch (IOException error) {
+                logger.log(Level.WARNING, "Failed to write " + name + " of chunk " + chunkX + ", " + chunkZ + ":", error);
+            } finally {
+                // A newer record may have been queued while this one was written.
+                pendingRecords.remove(chunkKey, pendingRecord);
+            }
+        });
+    }
+
+    /**
+     * Run a callback on the writer thread once all writes that were queued before were done.
+     */
+    public void afterWrites(Runnable callback) {
+        getWriterExecutor().execute(callback);
+    }
+
+    public void awaitWrites(long timeout, TimeUnit timeUnit) {
+        try {
+            getWriterExecutor().submit(() -> {
+            }).get(timeout, timeUnit);
+        } catch (Exception error) {
+            logger.log(Level.WARNING, "Failed to wait for " + name + " to be written:", error);
+        }
+    }
+
+    /**
+     * Wait for the queued writes, close all open regions and shut down the writer thread.
+     * This should only be called when the plugin disables, as it blocks the caller. The storage can still be used
+     * after, and opens regions and the writer thread again when needed.
+     */
+    public void close() {
+        awaitWrites(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        synchronized (openRegions) {
+            for (ChunkStorageRegion region : openRegions.values())
+                closeRegion(region);
+            openRegions.clear();
+            missingRegions.clear();
+        }
+
+        shutdownWriter(logger);
+    }
+
+    private ChunkData readRecord(ChunkKey chunkKey, Palette palette) throws IOException {
+        PendingRecord pendingRecord = pendingRecords.get(chunkKey);
+
+        if (pendingRecord != null)
+            return pendingRecord.record == null ? null : decode(ByteBuffer.wrap(pendingRecord.record), palette);
+
+        ChunkStorageRegion region = acquireRegion(chunkKey.worldId, chunkKey.chunkX >> 5, chunkKey.chunkZ >> 5, false);
+
+        if (region == null)
+            return null;
+
+        try {
+            ByteBuffer record = region.read(getLocalIndex(chunkKey.chunkX, chunkKey.chunkZ));
+            return record == null ? null : decode(record, palette);
+        } finally {
+            releaseRegion(region);
+        }
+    }
+
+    /**
+     * Get a region and mark it as used, so it is not closed until it is released.
+     */
+    private ChunkStorageRegion acquireRegion(UUID worldId, int regionX, int regionZ, boolean create) throws IOException {
+        String regionKey = worldId + "/r." + regionX + "." + regionZ + ".dat";
+
+        synchronized (openRegions) {
+            ChunkStorageRegion region = openRegions.get(regionKey);
+
+            if (region == null) {
+                if (!create && missingRegions.contains(regionKey))
+                    return null;
+
+                File regionFile = new File(folder, regionKey);
+
+                if (!regionFile.exists()) {
+                    if (!create) {
+                        missingRegions.add(regionKey);
+                        return null;
+                    }
+                    regionFile.getParentFile().mkdirs();
+                }
+
+                missingRegions.remove(regionKey);
+                region = new ChunkStorageRegion(regionFile, logger);
+                region.users++;
+                openRegions.put(regionKey, region);
+            } else {
+                region.users++;
+            }
+
+            return region;
+        }
+    }
+
+    private void releaseRegion(ChunkStorageRegion region) {
+        synchronized (openRegions) {
+            region.users--;
+        }
+    }
+
+    private void closeRegion(ChunkStorageRegion region) {
+        try {
+            region.close();
+        } catch (IOException error) {
+            logger.log(Level.WARNING, "Failed to close " + name + " region:", error);
+        }
+    }
+
+    private static synchronized ExecutorService getWriterExecutor() {
+        if (writerExecutor == null) {
+            writerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SuperiorSkyblock Missions Chunks Writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return writerExecutor;
+    }
+
+    private static synchronized void shutdownWriter(Logger logger) {
+        if (writerExecutor == null)
+            return;
+
+        // Writes that other storages queued are still done before the writer stops.
+        writerExecutor.shutdown();
+
+        try {
+            if (!writerExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                logger.warning("Timed out waiting for the chunks writer to stop.");
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+
+        writerExecutor = null;
+    }
+
+    private static byte[] encode(ChunkData chunkData, Palette palette) throws IOException {
+        LongIntMap paletteIndexes = new LongIntMap(8, NONE);
+        int[] paletteValues = new int[8];
+        int paletteSize = 0;
+
+        for (int i = 0; i < chunkData.size(); ++i) {
+            int value = chunkData.getValue(i);
+            if (!paletteIndexes.containsKey(value)) {
+                if (paletteSize == paletteValues.length)
+                    paletteValues = Arrays.copyOf(paletteValues, paletteSize * 2);
+                paletteIndexes.put(value, paletteSize);
+                paletteValues[paletteSize++] = value;
+            }
+        }
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4 + paletteSize * 16 + chunkData.size() * 6);
+
+        try (DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream)) {
+            outputStream.writeShort(paletteSize);
+
+            for (int i = 0; i < paletteSize; ++i) {
+                byte[] nameBytes = palette.getName(paletteValues[i]).getBytes(StandardCharsets.UTF_8);
+                outputStream.writeShort(nameBytes.length);
+                outputStream.write(nameBytes);
+            }
+
+            outputStream.writeInt(chunkData.size());
+
+            for (int i = 0; i < chunkData.size(); ++i) {
+                outputStream.writeInt(chunkData.getPosition(i));
+                outputStream.writeShort(paletteIndexes.get(chunkData.getValue(i)));
+            }
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static ChunkData decode(ByteBuffer record, Palette palette) throws IOException {
+        try {
+            int paletteSize = record.getShort() & 0xFFFF;
+            int[] paletteValues = new int[paletteSize];
+
+            for (int i = 0; i < paletteSize; ++i) {
+                byte[] nameBytes = new byte[record.getShort() & 0xFFFF];
+                record.get(nameBytes);
+                paletteValues[i] = palette.getValue(new String(nameBytes, StandardCharsets.UTF_8));
+            }
+
+            int count = record.getInt();
+            ChunkData chunkData = new ChunkData(count);
+
+            for (int i = 0; i < count; ++i) {
+                int position = record.getInt();
+                int value = paletteValues[record.getShort() & 0xFFFF];
+                if (value != NONE)
+                    chunkData.add(position, value);
+            }
+
+            return chunkData;
+        } catch (RuntimeException error) {
+            throw new IOException("Corrupted chunk record", error);
+        }
+    }
+
+    private static int getLocalIndex(int chunkX, int chunkZ) {
+        return (chunkX & 31) + (chunkZ & 31) * 32;
+    }
+
+    private static final class ChunkKey {
+
+        private final UUID worldId;
+        private final int chunkX;
+        private final int chunkZ;
+
+        ChunkKey(UUID worldId, int chunkX, int chunkZ) {
+            this.worldId = worldId;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ChunkKey that = (ChunkKey) o;
+            return chunkX == that.chunkX && chunkZ == that.chunkZ && worldId.equals(that.worldId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(worldId, chunkX, chunkZ);
+        }
+
+    }
+
+    /**
+     * A record that was queued to be written, or null if the chunk is cleared.
+     * Compared by identity, so the writer only removes the record it wrote.
+     */
+    private static final class PendingRecord {
+
+        private final byte[] record;
+
+        PendingRecord(byte[] record) {
+            this.record = record;
+        }
+
+    }
+
+    /**
+     * Maps the values of chunk data to the names they are stored by.
+     */
+    public interface Palette {
+
+        String getName(int value);
+
+        /**
+         * @return The value of the name, or {@link #NONE} to skip entries with that name.
+         */
+        int getValue(String name);
+
+        static Palette ofNames(String[] names) {
+            Map<String, Integer> values = new HashMap<>();
+            for (int i = 0; i < names.length; ++i)
+                values.put(names[i], i);
+
+            return new Palette() {
+                @Override
+                public String getName(int value) {
+                    return names[value];
+                }
+
+                @Override
+                public int getValue(String name) {
+                    return values.getOrDefault(name, NONE);
+                }
+            };
+        }
+
+    }
+
+    /**
+     * Values of a single chunk, keyed by their position inside the chunk.
+     */
+    public static final class ChunkData {
+
+        private int[] positions;
+        private int[] values;
+        private int size = 0;
+
+        public ChunkData(int expectedSize) {
+            this.positions = new int[Math.max(1, expectedSize)];
+            this.values = new int[positions.length];
+        }
+
+        public void add(int position, int value) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            positions[size] = position;
+            values[size] = value;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getPosition(int index) {
+            return positions[index];
+        }
+
+        public int getValue(int index) {
+            return values[index];
+        }
+
+        public static int packPosition(int x, int y, int z) {
+            return y << 8 | (z & 15) << 4 | (x & 15);
+        }
+
+        public static int getX(int chunkX, int position) {
+            return chunkX << 4 | (position & 15);
+        }
+
+        public static int getY(int position) {
+            return position >> 8;
+        }
+
+        public static int getZ(int chunkZ, int position) {
+            return chunkZ << 4 | (position >> 4 & 15);
+        }
+
+    }
+
+}
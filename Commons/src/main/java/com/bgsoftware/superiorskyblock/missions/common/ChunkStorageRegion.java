@@ -0,0 +1,266 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * A file holding the chunk records of a 32x32 chunks region.
+ * The file starts with a table of (offset, length) pairs, one for each chunk, followed by the chunk records.
+ * The table is kept in memory and every changed entry is written through to the file. Updated records are
+ * appended to the end of the file, and the file is compacted once most of it is no longer referenced by the table.
+ * Records are written by a single thread, while reads only wait for the file to be swapped by a compaction.
+ */
+final class ChunkStorageRegion {
+
+    private static final int MAGIC = 0x53534250;
+    private static final int VERSION = 1;
+    private static final int CHUNKS = 32 * 32;
+    private static final int TABLE_OFFSET = 8;
+    private static final int HEADER_SIZE = TABLE_OFFSET + CHUNKS * 8;
+    private static final int MINIMUM_COMPACT_SIZE = 64 * 1024;
+
+    private final File file;
+    private final Logger logger;
+    // Packed (offset, length) entries, so readers always see an offset and length of the same record.
+    private final AtomicLongArray entries = new AtomicLongArray(CHUNKS);
+    // Held by reads, and exclusively while the file is swapped or closed.
+    private final ReadWriteLock channelLock = new ReentrantReadWriteLock();
+    // Guarded by the lock of the open regions of the storage.
+    int users = 0;
+
+    private RandomAccessFile randomAccessFile;
+    private volatile FileChannel channel;
+    private long wastedBytes;
+
+    ChunkStorageRegion(File file, Logger logger) throws IOException {
+        this.file = file;
+        this.logger = logger;
+        open();
+    }
+
+    /**
+     * Read the encoded record of a chunk.
+     *
+     * @return The record, or null if the chunk has no record.
+     */
+    ByteBuffer read(int localIndex) throws IOException {
+        channelLock.readLock().lock();
+
+        try {
+            long entry = entries.get(localIndex);
+            int length = getLength(entry);
+
+            if (length <= 0)
+                return null;
+
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(channel, record, getOffset(entry));
+            record.flip();
+
+            return record;
+        } finally {
+            channelLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the encoded record of a chunk, or clear it if the record is null.
+     */
+    synchronized void write(int localIndex, byte[] record) throws IOException {
+        int oldLength = getLength(entries.get(localIndex));
+
+        if (record == null) {
+            setEntry(localIndex, 0, 0);
+        } else {
+            long offset = channel.size();
+            writeFully(channel, ByteBuffer.wrap(record), offset);
+            setEntry(localIndex, (int) offset, record.length);
+        }
+
+        wastedBytes += Math.max(0, oldLength);
+
+        long fileSize = channel.size();
+        if (wastedBytes > MINIMUM_COMPACT_SIZE && wastedBytes * 2 > fileSize - HEADER_SIZE)
+            compact();
+    }
+
+    synchronized void close() throws IOException {
+        channelLock.writeLock().lock();
+
+        try {
+            closeChannel();
+        } finally {
+            channelLock.writeLock().unlock();
+        }
+    }
+
+    private void setEntry(int localIndex, int offset, int length) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(8);
+        entry.putInt(offset).putInt(length).flip();
+        writeFully(channel, entry, TABLE_OFFSET + localIndex * 8);
+
+        // Published after the record was written, so readers never see an entry of a partial record.
+        entries.set(localIndex, packEntry(offset, length));
+    }
+
+    private void compact() throws IOException {
+        File compactFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        // Records are copied while reads continue from the current file.
+        try (RandomAccessFile compactRandomAccessFile = new RandomAccessFile(compactFile, "rw");
+             FileChannel compactChannel = compactRandomAccessFile.getChannel()) {
+            compactRandomAccessFile.setLength(0);
+
+            ByteBuffer compactHeader = ByteBuffer.allocate(HEADER_SIZE);
+            compactHeader.putInt(MAGIC).putInt(VERSION);
+
+            long position = HEADER_SIZE;
+
+            for (int i = 0; i < CHUNKS; ++i) {
+                long entry = entries.get(i);
+                int length = getLength(entry);
+
+                if (length <= 0) {
+                    compactHeader.putInt(0).putInt(0);
+                    continue;
+                }
+
+                transferFully(channel, getOffset(entry), length, compactChannel, position);
+                compactHeader.putInt((int) position).putInt(length);
+                position += length;
+            }
+
+            compactHeader.flip();
+            writeFully(compactChannel, compactHeader, 0);
+            compactChannel.force(false);
+        }
+
+        channelLock.writeLock().lock();
+
+        try {
+            // The file is not mapped and its channel is closed, so it can be replaced on all platforms.
+            closeChannel();
+
+            try {
+                Files.move(compactFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                open();
+            }
+        } finally {
+            channelLock.writeLock().unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long fileSize = channel.size();
+
+        if (fileSize == 0) {
+            // The whole header is written, with an empty table.
+            header.putInt(MAGIC).putInt(VERSION).position(0);
+            writeFully(channel, header, 0);
+        } else {
+            boolean fullHeader = fileSize >= HEADER_SIZE;
+
+            if (fullHeader) {
+                readFully(channel, header, 0);
+                header.flip();
+            }
+
+            if (!fullHeader || header.getInt(0) != MAGIC) {
+                moveAside("it has an invalid header");
+                // Opened again as an empty region.
+                open();
+                return;
+            }
+
+            int version = header.getInt(4);
+
+            if (version != VERSION) {
+                closeChannel();
+                throw new IOException("Unsupported version " + version + " of region file " + file);
+            }
+        }
+
+        long usedBytes = 0;
+
+        for (int i = 0; i < CHUNKS; ++i) {
+            int offset = header.getInt(TABLE_OFFSET + i * 8);
+            int length = header.getInt(TABLE_OFFSET + i * 8 + 4);
+            entries.set(i, packEntry(offset, length));
+            usedBytes += Math.max(0, length);
+        }
+
+        wastedBytes = channel.size() - HEADER_SIZE - usedBytes;
+    }
+
+    private void moveAside(String reason) throws IOException {
+        closeChannel();
+
+        File corruptedFile = new File(file.getParentFile(), file.getName() + ".corrupted-" + System.currentTimeMillis());
+        Files.move(file.toPath(), corruptedFile.toPath());
+
+        logger.warning("Region file " + file + " was moved to " + corruptedFile.getName() + ", as " + reason + ".");
+    }
+
+    private void closeChannel() throws IOException {
+        try {
+            channel.force(false);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static long packEntry(int offset, int length) {
+        return (long) offset << 32 | length & 0xFFFFFFFFL;
+    }
+
+    private static int getOffset(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    private static int getLength(long entry) {
+        return (int) entry;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new EOFException("Unexpected end of region file");
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    private static void transferFully(FileChannel source, long position, long length, FileChannel target,
+                                      long targetPosition) throws IOException {
+        target.position(targetPosition);
+
+        while (length > 0) {
+            long transferred = source.transferTo(position, length, target);
+            if (transferred <= 0)
+                throw new EOFException("Unexpected end of region file");
+            position += transferred;
+            length -= transferred;
+        }
+    }
+
+}
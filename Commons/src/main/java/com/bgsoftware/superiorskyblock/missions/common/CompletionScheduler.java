@@ -0,0 +1,139 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
+import com.bgsoftware.superiorskyblock.api.missions.Mission;
+import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Coalesces completion checks of a mission.
+ * Players that made progress are marked as dirty, and a single async task checks all of them once.
+ * While a check is pending, marking more players does not schedule more tasks.
+ * Missions can only be rewarded to online players, so offline players are dropped, unless the mission keeps them
+ * pending until they join. Such a mission must save and load the pending players with its progress.
+ */
+public final class CompletionScheduler {
+
+    private static final long CHECK_DELAY = 2L;
+
+    private final Set<SuperiorPlayer> dirtyPlayers = new LinkedHashSet<>();
+    private final Set<UUID> pendingPlayers = new LinkedHashSet<>();
+    private final JavaPlugin plugin;
+    private final Mission<?> mission;
+    private final boolean keepOfflinePlayers;
+
+    private boolean drainScheduled = false;
+
+    public CompletionScheduler(JavaPlugin plugin, Mission<?> mission) {
+        this(plugin, mission, false);
+    }
+
+    /**
+     * @param keepOfflinePlayers Whether offline players should be checked once they join.
+     *                           The mission must then save them using {@link #savePendingPlayers}.
+     */
+    public CompletionScheduler(JavaPlugin plugin, Mission<?> mission, boolean keepOfflinePlayers) {
+        this.plugin = plugin;
+        this.mission = mission;
+        this.keepOfflinePlayers = keepOfflinePlayers;
+
+        if (keepOfflinePlayers)
+            Bukkit.getPluginManager().registerEvents(new JoinListener(), plugin);
+    }
+
+    public void markDirty(SuperiorPlayer superiorPlayer) {
+        synchronized (this) {
+            if (!superiorPlayer.isOnline()) {
+                addPendingPlayer(superiorPlayer);
+                return;
+            }
+
+            dirtyPlayers.add(superiorPlayer);
+
+            if (drainScheduled)
+                return;
+
+            drainScheduled = true;
+        }
+
+        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::drain, CHECK_DELAY);
+    }
+
+    public void savePendingPlayers(ConfigurationSection section, String path) {
+        List<String> pendingPlayers = new ArrayList<>();
+
+        synchronized (this) {
+            for (UUID playerUUID : this.pendingPlayers)
+                pendingPlayers.add(playerUUID.toString());
+        }
+
+        section.set(path, pendingPlayers.isEmpty() ? null : pendingPlayers);
+    }
+
+    public void loadPendingPlayers(ConfigurationSection section, String path) {
+        for (String uuid : section.getStringList(path)) {
+            try {
+                markDirty(SuperiorSkyblockAPI.getPlayer(UUID.fromString(uuid)));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    private void drain() {
+        List<SuperiorPlayer> players;
+
+        synchronized (this) {
+            players = new ArrayList<>(dirtyPlayers);
+            dirtyPlayers.clear();
+            drainScheduled = false;
+        }
+
+        for (SuperiorPlayer superiorPlayer : players) {
+            if (!superiorPlayer.isOnline()) {
+                synchronized (this) {
+                    addPendingPlayer(superiorPlayer);
+                }
+                continue;
+            }
+
+            superiorPlayer.runIfOnline(player -> {
+                if (mission.canComplete(superiorPlayer))
+                    SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(mission, superiorPlayer, true);
+            });
+        }
+    }
+
+    private void addPendingPlayer(SuperiorPlayer superiorPlayer) {
+        if (keepOfflinePlayers)
+            pendingPlayers.add(superiorPlayer.getUniqueId());
+    }
+
+    private class JoinListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPlayerJoin(PlayerJoinEvent e) {
+            boolean pending;
+
+            synchronized (CompletionScheduler.this) {
+                pending = pendingPlayers.remove(e.getPlayer().getUniqueId());
+            }
+
+            if (pending)
+                markDirty(SuperiorSkyblockAPI.getPlayer(e.getPlayer()));
+        }
+
+    }
+
+}
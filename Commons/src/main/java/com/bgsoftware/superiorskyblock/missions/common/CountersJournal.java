@@ -0,0 +1,295 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Append-only file of the serialized counters of players.
+ * Every save appends the counters of the players that changed since the last save, and later records of a
+ * player replace the earlier ones. The file is rewritten with only the latest records once most of its
+ * records were replaced.
+ * Records are appended and compacted in memory, and written by {@link #flush()}, which may be called from
+ * another thread than the one appending records.
+ */
+public final class CountersJournal {
+
+    private static final int MAGIC = 0x5353434A;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final int MINIMUM_COMPACT_RECORDS = 1024;
+    private static final int REMOVED = -1;
+
+    private final File file;
+    private final Logger logger;
+    private final Set<UUID> players = new HashSet<>();
+    private final ByteArrayOutputStream pendingRecords = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOutputStream = new DataOutputStream(pendingRecords);
+    private final Object flushLock = new Object();
+
+    private int records = 0;
+    // The counters the journal is rewritten with on the next flush, followed by the pending records.
+    private Map<UUID, byte[]> compactedCounters = null;
+    // Changed on every compaction, as compacting drops the pending records that a running flush may write.
+    private int compactions = 0;
+
+    public CountersJournal(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    /**
+     * Read the latest counters of all players in the journal.
+     * A journal that is not valid is moved aside, so it is not appended to and a new journal is started.
+     */
+    public synchronized Map<UUID, byte[]> read() throws IOException {
+        Map<UUID, byte[]> counters = new HashMap<>();
+
+        players.clear();
+        records = 0;
+
+        if (!file.exists())
+            return counters;
+
+        // The header is written together with the first records, so a shorter file has no records.
+        if (file.length() < HEADER_SIZE) {
+            Files.delete(file.toPath());
+            return counters;
+        }
+
+        long fileLength = file.length();
+        long validLength = HEADER_SIZE;
+
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int magic = inputStream.readInt();
+            int version = inputStream.readUnsignedByte();
+
+            if (magic != MAGIC || version != VERSION) {
+                inputStream.close();
+                moveAside(magic != MAGIC ? "it is not a counters journal" : "its version " + version + " is not supported");
+                return counters;
+            }
+
+            while (true) {
+                UUID playerUUID;
+                byte[] data;
+
+                try {
+                    playerUUID = new UUID(inputStream.readLong(), inputStream.readLong());
+                    int length = inputStream.readInt();
+
+                    // A corrupted length is handled like a record that was not fully written.
+                    if ((length < 0 && length != REMOVED) || length > fileLength - validLength - RECORD_HEADER_SIZE)
+                        break;
+
+                    data = length == REMOVED ? null : new byte[length];
+                    if (data != null)
+                        inputStream.readFully(data);
+                } catch (EOFException error) {
+                    break;
+                }
+
+                validLength += RECORD_HEADER_SIZE + (data == null ? 0 : data.length);
+                records++;
+
+                if (data == null) {
+                    counters.remove(playerUUID);
+                } else {
+                    counters.put(playerUUID, data);
+                }
+            }
+        }
+
+        // A record that was not fully written when the server stopped is dropped, so new records are
+        // appended right after the last full one.
+        if (validLength < file.length()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+
+        players.addAll(counters.keySet());
+
+        return counters;
+    }
+
+    public synchronized void append(UUID playerUUID, byte[] data) {
+        try {
+            writeRecord(pendingOutputStream, playerUUID, data);
+        } catch (IOException error) {
+            throw new IllegalStateException(error);
+        }
+
+        players.add(playerUUID);
+        records++;
+    }
+
+    public synchronized void appendRemoved(UUID playerUUID) {
+        if (!players.remove(playerUUID))
+            return;
+
+        try {
+            writeRecord(pendingOutputStream, playerUUID, null);
+        } catch (IOException error) {
+            throw new IllegalStateException(error);
+        }
+
+        records++;
+    }
+
+    /**
+     * Get the players that have counters in the journal, including appended ones that were not flushed yet.
+     */
+    public synchronized Set<UUID> getPlayers() {
+        return new HashSet<>(players);
+    }
+
+    /**
+     * Check whether most of the records in the journal were replaced by later records.
+     */
+    public synchronized boolean shouldCompact() {
+        return records > MINIMUM_COMPACT_RECORDS && records > players.size() * 2;
+    }
+
+    /**
+     * Write the appended records to the end of the journal, or rewrite it if it was compacted.
+     * If writing fails, the journal is truncated back to its previous length and the records are kept, so
+     * they are written again by the next flush.
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            Map<UUID, byte[]> compactedCounters;
+            byte[] records;
+            int compactions;
+
+            synchronized (this) {
+                compactedCounters = this.compactedCounters;
+                records = pendingRecords.toByteArray();
+                compactions = this.compactions;
+            }
+
+            if (compactedCounters != null) {
+                rewrite(compactedCounters, records);
+            } else if (records.length > 0) {
+                appendRecords(records);
+            } else {
+                return;
+            }
+
+            synchronized (this) {
+                // Records that were appended after a compaction that happened during the flush are all newer.
+                if (this.compactions == compactions) {
+                    this.compactedCounters = null;
+                    byte[] newRecords = pendingRecords.toByteArray();
+                    pendingRecords.reset();
+                    pendingRecords.write(newRecords, records.length, newRecords.length - records.length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace all records of the journal with the given counters, dropping all appended records.
+     * The journal is rewritten on the next flush.
+     */
+    public synchronized void compact(Map<UUID, byte[]> counters) {
+        pendingRecords.reset();
+        compactedCounters = counters;
+        compactions++;
+        players.clear();
+        players.addAll(counters.keySet());
+        records = counters.size();
+    }
+
+    private void appendRecords(byte[] records) throws IOException {
+        file.getParentFile().mkdirs();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long length = channel.size();
+
+            try {
+                long position = length;
+
+                if (length == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).put((byte) VERSION).flip();
+                    position += writeFully(channel, header, position);
+                }
+
+                writeFully(channel, ByteBuffer.wrap(records), position);
+            } catch (IOException error) {
+                // Partial records would be read as the start of the next appended records.
+                try {
+                    channel.truncate(length);
+                } catch (IOException truncateError) {
+                    error.addSuppressed(truncateError);
+                }
+                throw error;
+            }
+        }
+    }
+
+    private void rewrite(Map<UUID, byte[]> counters, byte[] records) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        file.getParentFile().mkdirs();
+
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            writeHeader(outputStream);
+            for (Map.Entry<UUID, byte[]> entry : counters.entrySet())
+                writeRecord(outputStream, entry.getKey(), entry.getValue());
+            outputStream.write(records);
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining())
+            written += channel.write(buffer, position + written);
+        return written;
+    }
+
+    private void moveAside(String reason) throws IOException {
+        File corruptedFile = new File(file.getParentFile(), file.getName() + ".corrupted-" + System.currentTimeMillis());
+        Files.move(file.toPath(), corruptedFile.toPath());
+        logger.warning("Counters journal " + file + " was moved to " + corruptedFile.getName() + ", as " + reason + ".");
+    }
+
+    private static void writeHeader(DataOutputStream outputStream) throws IOException {
+        outputStream.writeInt(MAGIC);
+        outputStream.writeByte(VERSION);
+    }
+
+    private static void writeRecord(DataOutputStream outputStream, UUID playerUUID, byte[] data) throws IOException {
+        outputStream.writeLong(playerUUID.getMostSignificantBits());
+        outputStream.writeLong(playerUUID.getLeastSignificantBits());
+
+        if (data == null) {
+            outputStream.writeInt(REMOVED);
+        } else {
+            outputStream.writeInt(data.length);
+            outputStream.write(data);
+        }
+    }
+
+}
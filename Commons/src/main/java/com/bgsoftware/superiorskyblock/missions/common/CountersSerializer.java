@@ -0,0 +1,135 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Formats of the counters of a tracker.
+ * Only slots with counts are written, by their names or keys, so counters survive changes to the order of the
+ * requirements in the config. Counters are saved into the yaml files in the same readable format missions
+ * always saved them in, and are serialized into a binary format for journals.
+ */
+public final class CountersSerializer {
+
+    private static final int VERSION = 1;
+
+    private CountersSerializer() {
+
+    }
+
+    public static byte[] serialize(CountersTracker tracker) {
+        Requirements<?> requirements = tracker.getRequirements();
+        int slotsCount = requirements.getSlotsCount();
+        int countedSlots = 0;
+
+        for (int slot = 0; slot < slotsCount; ++slot) {
+            if (tracker.getCount(slot) != 0)
+                countedSlots++;
+        }
+
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(8 + countedSlots * 24);
+
+        try (DataOutputStream outputStream = new DataOutputStream(byteStream)) {
+            outputStream.writeByte(VERSION);
+            outputStream.writeShort(countedSlots);
+
+            for (int slot = 0; slot < slotsCount; ++slot) {
+                int count = tracker.getCount(slot);
+                if (count != 0) {
+                    outputStream.writeUTF(requirements.getSlotName(slot));
+                    outputStream.writeInt(count);
+                }
+            }
+        } catch (IOException error) {
+            throw new IllegalStateException(error);
+        }
+
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * Add the counters from serialized data to a tracker.
+     * Slots that are no longer required explicitly are counted into the "ALL" slot, if there is one.
+     */
+    public static void deserialize(CountersTracker tracker, byte[] data) throws IOException {
+        Requirements<?> requirements = tracker.getRequirements();
+
+        try (DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = inputStream.readUnsignedByte();
+
+            if (version != VERSION)
+                throw new IOException("Unsupported counters version " + version);
+
+            int countedSlots = inputStream.readUnsignedShort();
+
+            for (int i = 0; i < countedSlots; ++i) {
+                String slotName = inputStream.readUTF();
+                int count = inputStream.readInt();
+                int slot = requirements.getSlotByName(slotName);
+                if (slot != Requirements.NO_SLOT)
+                    tracker.track(slot, count);
+            }
+        }
+    }
+
+    /**
+     * Save the counters of a tracker into a path, as "name: count" pairs of its slots.
+     */
+    public static void save(ConfigurationSection section, String path, CountersTracker tracker) {
+        Requirements<?> requirements = tracker.getRequirements();
+        ConfigurationSection countersSection = section.createSection(path);
+
+        for (int slot = 0; slot < requirements.getSlotsCount(); ++slot) {
+            int count = tracker.getCount(slot);
+            if (count != 0)
+                countersSection.set(requirements.getSlotName(slot), count);
+        }
+    }
+
+    /**
+     * Save the counters of a tracker into a path, as a list of "item" and "amount" entries of the keys of its
+     * slots. Used by missions that count keys that are stored as objects, such as items.
+     */
+    public static void saveKeys(ConfigurationSection section, String path, CountersTracker tracker) {
+        Requirements<?> requirements = tracker.getRequirements();
+        ConfigurationSection countersSection = section.createSection(path);
+        int index = 0;
+
+        for (int slot = 0; slot < requirements.getSlotsCount(); ++slot) {
+            Object key = requirements.getSlotKey(slot);
+            int count = tracker.getCount(slot);
+            if (key != null && count != 0) {
+                countersSection.set(index + ".item", key);
+                countersSection.set(index + ".amount", count);
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Load the counters of a tracker from a path that holds them as a base64 string of the binary format, which
+     * earlier versions saved into the yaml files.
+     *
+     * @return false if the path contains data in the yaml format, which should be loaded by the mission.
+     * @throws IllegalArgumentException if the data in the path is corrupted.
+     */
+    public static boolean load(ConfigurationSection section, String path, CountersTracker tracker) {
+        if (!section.isString(path))
+            return false;
+
+        try {
+            deserialize(tracker, Base64.getDecoder().decode(section.getString(path)));
+        } catch (IOException error) {
+            throw new IllegalArgumentException("Invalid counters data in " + path, error);
+        }
+
+        return true;
+    }
+
+}
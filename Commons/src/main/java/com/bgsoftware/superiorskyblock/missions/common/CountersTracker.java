@@ -0,0 +1,141 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import java.util.Arrays;
+
+/**
+ * Counts the progress of a player in a mission by the slots of its requirements.
+ * The completed amount of all requirements is kept as a running value, so the progress is read without
+ * going over the counters.
+ */
+public class CountersTracker {
+
+    private final Requirements<?> requirements;
+    private final int[] counts;
+    private final int[] requirementCounts;
+    private int totalCount = 0;
+    private int progressValue = 0;
+    private int modifications = 0;
+    // Set by the thread that saved the tracker, once it was saved.
+    private volatile int savedModifications = 0;
+
+    public CountersTracker(Requirements<?> requirements) {
+        this.requirements = requirements;
+        this.counts = new int[requirements.getSlotsCount()];
+        this.requirementCounts = new int[requirements.getRequirementsCount()];
+    }
+
+    public Requirements<?> getRequirements() {
+        return requirements;
+    }
+
+    public void track(int slot, int amount) {
+        modifications++;
+        counts[slot] += amount;
+        totalCount += amount;
+
+        for (int requirement : requirements.getSlotRequirements(slot))
+            trackRequirement(requirement, amount);
+
+        for (int requirement : requirements.getAllRequirements())
+            trackRequirement(requirement, amount);
+    }
+
+    /**
+     * Track the amounts of all slots at once.
+     *
+     * @param amounts The amount to track of each slot, indexed by the slots.
+     */
+    public void trackAll(int[] amounts) {
+        int amount = 0;
+
+        for (int slot = 0; slot < amounts.length; ++slot) {
+            int slotAmount = amounts[slot];
+
+            if (slotAmount == 0)
+                continue;
+
+            counts[slot] += slotAmount;
+            amount += slotAmount;
+            modifications++;
+
+            for (int requirement : requirements.getSlotRequirements(slot))
+                trackRequirement(requirement, slotAmount);
+        }
+
+        totalCount += amount;
+
+        for (int requirement : requirements.getAllRequirements())
+            trackRequirement(requirement, amount);
+    }
+
+    public int getCount(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Get the count of a key by its name, or the total count for "ALL".
+     * Keys that are not required explicitly are always 0.
+     */
+    public int getCountByName(String name) {
+        if (name.equalsIgnoreCase(Requirements.ALL))
+            return totalCount;
+
+        int slot = requirements.getSlotByName(name);
+        return slot == Requirements.NO_SLOT || requirements.isAllSlot(slot) ? 0 : counts[slot];
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getProgressValue() {
+        return progressValue;
+    }
+
+    public double getProgress() {
+        return (double) progressValue / requirements.getTotalRequiredAmount();
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(requirementCounts, 0);
+        totalCount = 0;
+        progressValue = 0;
+        modifications++;
+    }
+
+    /**
+     * Check whether the counters were changed since the tracker was last marked as saved.
+     */
+    public boolean isDirty() {
+        return modifications != savedModifications;
+    }
+
+    public void markSaved() {
+        savedModifications = modifications;
+    }
+
+    /**
+     * Get a number that changes whenever the counters are changed, to be passed to {@link #markSaved(int)}
+     * once the counters that were serialized with it were saved.
+     */
+    public int getModifications() {
+        return modifications;
+    }
+
+    /**
+     * Mark the counters as saved as they were when {@link #getModifications()} returned the given number.
+     * Changes that were made after it keep the tracker dirty.
+     */
+    public void markSaved(int modifications) {
+        savedModifications = modifications;
+    }
+
+    private void trackRequirement(int requirement, int amount) {
+        int requiredAmount = requirements.getRequiredAmount(requirement);
+        int oldAmount = requirementCounts[requirement];
+        requirementCounts[requirement] = oldAmount + amount;
+        progressValue += Math.min(oldAmount + amount, requiredAmount) - Math.min(oldAmount, requiredAmount);
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive longs to primitive ints.
+ * Lookups and updates of existing keys do not allocate.
+ */
+public final class LongIntMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final int missingValue;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int threshold;
+
+    public LongIntMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? missingValue : values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public int put(long key, int value) {
+        int index = mix(key) & mask;
+
+        while (used[index]) {
+            if (keys[index] == key) {
+                int oldValue = values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+        }
+
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+
+        if (++size >= threshold)
+            rehash(keys.length * 2);
+
+        return missingValue;
+    }
+
+    public int remove(long key) {
+        int index = indexOf(key);
+
+        if (index < 0)
+            return missingValue;
+
+        int oldValue = values[index];
+        shiftKeys(index);
+        size--;
+
+        return oldValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getMissingValue() {
+        return missingValue;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < used.length; ++i) {
+            if (used[i])
+                consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    private int indexOf(long key) {
+        int index = mix(key) & mask;
+
+        while (used[index]) {
+            if (keys[index] == key)
+                return index;
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        long current;
+
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+
+            while (true) {
+                if (!used[pos]) {
+                    used[last] = false;
+                    return;
+                }
+
+                current = keys[pos];
+                slot = mix(current) & mask;
+
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+                    break;
+
+                pos = (pos + 1) & mask;
+            }
+
+            keys[last] = current;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldUsed.length; ++i) {
+            if (oldUsed[i]) {
+                int index = mix(oldKeys[i]) & mask;
+                while (used[index])
+                    index = (index + 1) & mask;
+                used[index] = true;
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int) (hash ^ (hash >>> 16));
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR <= expectedSize)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    public interface EntryConsumer {
+
+        void accept(long key, int value);
+
+    }
+
+}
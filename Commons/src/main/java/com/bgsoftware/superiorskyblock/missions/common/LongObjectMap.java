@@ -0,0 +1,160 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive longs to objects.
+ * Lookups and updates of existing keys do not allocate.
+ */
+public final class LongObjectMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int threshold;
+
+    public LongObjectMap(int expectedSize) {
+        allocate(LongIntMap.tableSizeFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Cannot insert null values.");
+
+        int index = LongIntMap.mix(key) & mask;
+
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+
+        if (++size >= threshold)
+            rehash(keys.length * 2);
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+
+        if (index < 0)
+            return null;
+
+        V oldValue = (V) values[index];
+        shiftKeys(index);
+        size--;
+
+        return oldValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<V> consumer) {
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != null)
+                consumer.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    private int indexOf(long key) {
+        int index = LongIntMap.mix(key) & mask;
+
+        while (values[index] != null) {
+            if (keys[index] == key)
+                return index;
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        long current;
+
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+
+            while (true) {
+                if (values[pos] == null) {
+                    values[last] = null;
+                    return;
+                }
+
+                current = keys[pos];
+                slot = LongIntMap.mix(current) & mask;
+
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+                    break;
+
+                pos = (pos + 1) & mask;
+            }
+
+            keys[last] = current;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldValues.length; ++i) {
+            if (oldValues[i] != null) {
+                int index = LongIntMap.mix(oldKeys[i]) & mask;
+                while (values[index] != null)
+                    index = (index + 1) & mask;
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * 0.6f);
+    }
+
+    public interface EntryConsumer<V> {
+
+        void accept(long key, V value);
+
+    }
+
+}
@@ -0,0 +1,269 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiled requirements of a mission.
+ * Every distinct key in the requirements gets its own slot, and keys that are only counted by "ALL"
+ * requirements share a single slot. Requirements are numbered in the order they were added, and each
+ * slot knows which requirements count it.
+ *
+ * @param <K> The type of the keys that are counted by the mission.
+ */
+public final class Requirements<K> {
+
+    public static final int NO_SLOT = -1;
+    public static final String ALL = "ALL";
+
+    private final List<String> slotNames = new ArrayList<>();
+    private final List<K> slotKeys = new ArrayList<>();
+    private final Map<K, Integer> slotsByKey = new HashMap<>();
+    private final Map<String, Integer> slotsByName = new HashMap<>();
+    private final Map<K, Integer> requirementsByKey = new HashMap<>();
+    private final Map<String, Integer> requirementsByName = new HashMap<>();
+    private final Function<K, String> keyNames;
+
+    private int allSlot = NO_SLOT;
+    private int totalRequiredAmount = 0;
+    private int[] requiredAmounts;
+    private int[][] slotRequirements;
+    private int[] allRequirements;
+
+    private Requirements(Function<K, String> keyNames) {
+        this.keyNames = keyNames;
+    }
+
+    public static <K> Builder<K> newBuilder(Function<K, String> keyNames) {
+        return new Builder<>(keyNames);
+    }
+
+    /**
+     * Compile requirements that are given by names, where "ALL" matches every name.
+     */
+    public static Requirements<String> fromNames(Map<List<String>, Integer> requiredNames) {
+        return fromNames(requiredNames, false);
+    }
+
+    /**
+     * Compile requirements that are given by names, where "ALL" matches every name.
+     *
+     * @param countKeysWithAll See {@link Builder#setCountKeysWithAll(boolean)}.
+     */
+    public static Requirements<String> fromNames(Map<List<String>, Integer> requiredNames, boolean countKeysWithAll) {
+        Builder<String> builder = newBuilder(Function.identity());
+        builder.setCountKeysWithAll(countKeysWithAll);
+
+        for (Map.Entry<List<String>, Integer> requiredName : requiredNames.entrySet()) {
+            List<String> names = new ArrayList<>(requiredName.getKey().size());
+            boolean all = false;
+
+            for (String name : requiredName.getKey()) {
+                if (name.equalsIgnoreCase(ALL)) {
+                    all = true;
+                } else {
+                    names.add(name);
+                }
+            }
+
+            builder.addRequirement(names, all, requiredName.getValue());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Get the slot of a key, or the "ALL" slot if the key is not required explicitly.
+     */
+    public int getSlot(K key) {
+        Integer slot = slotsByKey.get(key);
+        return slot == null ? allSlot : slot;
+    }
+
+    /**
+     * Get the slot of a key by its name, or the "ALL" slot if the key is not required explicitly.
+     */
+    public int getSlotByName(String name) {
+        if (name.equalsIgnoreCase(ALL))
+            return allSlot;
+
+        Integer slot = slotsByName.get(name);
+        return slot == null ? allSlot : slot;
+    }
+
+    /**
+     * Get the first requirement that contains a key.
+     */
+    public int getRequirement(K key) {
+        return requirementsByKey.getOrDefault(key, NO_SLOT);
+    }
+
+    /**
+     * Get the first requirement that contains a key by its name, or the first "ALL" requirement.
+     */
+    public int getRequirementByName(String name) {
+        return requirementsByName.getOrDefault(name.equalsIgnoreCase(ALL) ? ALL : name, NO_SLOT);
+    }
+
+    public String getSlotName(int slot) {
+        return slotNames.get(slot);
+    }
+
+    /**
+     * Get the key of a slot, or null for the "ALL" slot.
+     */
+    public K getSlotKey(int slot) {
+        return slotKeys.get(slot);
+    }
+
+    public String getKeyName(K key) {
+        return keyNames.apply(key);
+    }
+
+    public int getSlotsCount() {
+        return slotNames.size();
+    }
+
+    public boolean hasAll() {
+        return allSlot != NO_SLOT;
+    }
+
+    public boolean isAllSlot(int slot) {
+        return slot == allSlot;
+    }
+
+    public int getRequirementsCount() {
+        return requiredAmounts.length;
+    }
+
+    public int getRequiredAmount(int requirement) {
+        return requiredAmounts[requirement];
+    }
+
+    public int getTotalRequiredAmount() {
+        return totalRequiredAmount;
+    }
+
+    /**
+     * Get the requirements that count a slot, not including the "ALL" requirements.
+     * Requirements that contain both the key of the slot and "ALL" are only included if keys are counted with
+     * "ALL", see {@link Builder#setCountKeysWithAll(boolean)}.
+     */
+    public int[] getSlotRequirements(int slot) {
+        return slotRequirements[slot];
+    }
+
+    /**
+     * Get the requirements that contain "ALL", which count every slot.
+     */
+    public int[] getAllRequirements() {
+        return allRequirements;
+    }
+
+    public static final class Builder<K> {
+
+        private final Requirements<K> requirements;
+        private final List<Integer> requiredAmounts = new ArrayList<>();
+        private final List<List<Integer>> requirementSlots = new ArrayList<>();
+        private final List<Integer> allRequirements = new ArrayList<>();
+        private boolean countKeysWithAll = false;
+
+        private Builder(Function<K, String> keyNames) {
+            this.requirements = new Requirements<>(keyNames);
+        }
+
+        /**
+         * Set whether requirements that contain both keys and "ALL" count their keys again on top of "ALL".
+         * When set, a key that such a requirement lists is counted twice for it. Off by default, so every
+         * key is counted once by every requirement.
+         */
+        public Builder<K> setCountKeysWithAll(boolean countKeysWithAll) {
+            this.countKeysWithAll = countKeysWithAll;
+            return this;
+        }
+
+        /**
+         * Add a requirement.
+         *
+         * @param keys           The keys that are counted by the requirement.
+         * @param all            Whether the requirement counts all keys.
+         * @param requiredAmount The amount required to complete the requirement.
+         * @return The number of the requirement.
+         */
+        public int addRequirement(Collection<K> keys, boolean all, int requiredAmount) {
+            int requirement = requiredAmounts.size();
+            List<Integer> slots = new ArrayList<>(keys.size());
+
+            for (K key : keys) {
+                slots.add(addKey(key));
+                requirements.requirementsByKey.putIfAbsent(key, requirement);
+                requirements.requirementsByName.putIfAbsent(requirements.keyNames.apply(key), requirement);
+            }
+
+            if (all) {
+                if (requirements.allSlot == NO_SLOT)
+                    requirements.allSlot = createSlot(ALL);
+                requirements.requirementsByName.putIfAbsent(ALL, requirement);
+                allRequirements.add(requirement);
+            }
+
+            requiredAmounts.add(requiredAmount);
+            requirementSlots.add(slots);
+            requirements.totalRequiredAmount += requiredAmount;
+
+            return requirement;
+        }
+
+        public Requirements<K> build() {
+            int[][] slotRequirements = new int[requirements.getSlotsCount()][];
+
+            for (int slot = 0; slot < slotRequirements.length; ++slot) {
+                List<Integer> slotRequirementsList = new ArrayList<>();
+                for (int requirement = 0; requirement < requirementSlots.size(); ++requirement) {
+                    // "ALL" requirements already count every slot.
+                    if (!countKeysWithAll && allRequirements.contains(requirement))
+                        continue;
+
+                    for (int requirementSlot : requirementSlots.get(requirement)) {
+                        if (requirementSlot == slot)
+                            slotRequirementsList.add(requirement);
+                    }
+                }
+                slotRequirements[slot] = slotRequirementsList.stream().mapToInt(i -> i).toArray();
+            }
+
+            requirements.slotRequirements = slotRequirements;
+            requirements.allRequirements = allRequirements.stream().mapToInt(i -> i).toArray();
+            requirements.requiredAmounts = requiredAmounts.stream().mapToInt(i -> i).toArray();
+
+            return requirements;
+        }
+
+        private int addKey(K key) {
+            Integer existingSlot = requirements.slotsByKey.get(key);
+
+            if (existingSlot != null)
+                return existingSlot;
+
+            int slot = createSlot(requirements.keyNames.apply(key));
+            requirements.slotsByKey.put(key, slot);
+            requirements.slotKeys.set(slot, key);
+
+            return slot;
+        }
+
+        private int createSlot(String name) {
+            int slot = requirements.slotNames.size();
+            requirements.slotNames.add(name);
+            requirements.slotKeys.add(null);
+            requirements.slotsByName.putIfAbsent(name, slot);
+            return slot;
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.bgsoftware.superiorskyblock.missions.common;
+
+import com.bgsoftware.wildstacker.api.WildStackerAPI;
+import com.bgsoftware.wildstacker.api.handlers.SystemManager;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Access to the stacks of WildStacker, which is hooked into when it enables and released when it disables.
+ * While WildStacker is not enabled, blocks are not stacked and entities are single.
+ */
+public final class WildStackerHook {
+
+    private static final String PLUGIN_NAME = "WildStacker";
+
+    // Set only while WildStacker is enabled.
+    private volatile Handle handle;
+
+    public WildStackerHook(JavaPlugin plugin) {
+        Bukkit.getPluginManager().registerEvents(new PluginListener(), plugin);
+        Bukkit.getScheduler().runTaskLater(plugin, this::refresh, 1L);
+    }
+
+    public boolean isStackedBarrel(Block block) {
+        Handle handle = this.handle;
+        return handle != null && handle.systemManager.isStackedBarrel(block);
+    }
+
+    public int getEntityAmount(LivingEntity entity) {
+        Handle handle = this.handle;
+
+        if (handle != null) {
+            try {
+                return handle.getEntityAmount(entity);
+            } catch (Exception ignored) {
+            }
+        }
+
+        return 1;
+    }
+
+    private void refresh() {
+        handle = Bukkit.getPluginManager().isPluginEnabled(PLUGIN_NAME) ? new Handle() : null;
+    }
+
+    private class PluginListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPluginEnable(PluginEnableEvent e) {
+            if (e.getPlugin().getName().equals(PLUGIN_NAME))
+                refresh();
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPluginDisable(PluginDisableEvent e) {
+            // The plugin is still marked as enabled while this event is called.
+            if (e.getPlugin().getName().equals(PLUGIN_NAME))
+                handle = null;
+        }
+
+    }
+
+    /**
+     * Holds the classes of WildStacker, so they are only loaded while it is enabled.
+     */
+    private static final class Handle {
+
+        private final SystemManager systemManager = WildStackerAPI.getWildStacker().getSystemManager();
+
+        int getEntityAmount(LivingEntity entity) {
+            return WildStackerAPI.getEntityAmount(entity);
+        }
+
+    }
+
+}
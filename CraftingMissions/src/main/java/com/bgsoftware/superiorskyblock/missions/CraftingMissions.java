@@ -5,6 +5,10 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
+import com.bgsoftware.superiorskyblock.missions.common.CountersSerializer;
+import com.bgsoftware.superiorskyblock.missions.common.CountersTracker;
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -21,10 +25,9 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -37,17 +40,21 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
     private static final Pattern percentagePattern = Pattern.compile("(.*)\\{percentage_(.+?)}(.*)"),
             valuePattern = Pattern.compile("(.*)\\{value_(.+?)}(.*)");
 
-    private final Map<ItemStack, Integer> itemsToCraft = new HashMap<>();
+    private Requirements<ItemStack> requirements;
 
     private JavaPlugin plugin;
+    private CompletionScheduler completionScheduler;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
 
         if (!section.contains("craftings"))
             throw new MissionLoadException("You must have the \"craftings\" section in the config.");
 
+        Requirements.Builder<ItemStack> requirementsBuilder = Requirements.newBuilder(CraftingMissions::getItemName);
+
         for (String key : section.getConfigurationSection("craftings").getKeys(false)) {
             String type = section.getString("craftings." + key + ".type");
             short data = (short) section.getInt("craftings." + key + ".data", 0);
@@ -60,12 +67,14 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
                 throw new MissionLoadException("Invalid crafting result " + type + ".");
             }
 
-            itemsToCraft.put(new ItemStack(material, 1, data), amount);
+            requirementsBuilder.addRequirement(Collections.singletonList(new ItemStack(material, 1, data)), false, amount);
         }
 
+        requirements = requirementsBuilder.build();
+
         Bukkit.getPluginManager().registerEvents(this, plugin);
 
-        setClearMethod(craftingsTracker -> craftingsTracker.craftedItems.clear());
+        setClearMethod(CraftingsTracker::clear);
     }
 
     @Override
@@ -75,15 +84,7 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
         if (craftingsTracker == null)
             return 0.0;
 
-        int requiredItems = 0;
-        int interactions = 0;
-
-        for (Map.Entry<ItemStack, Integer> entry : this.itemsToCraft.entrySet()) {
-            requiredItems += entry.getValue();
-            interactions += Math.min(craftingsTracker.getCrafts(entry.getKey()), entry.getValue());
-        }
-
-        return (double) interactions / requiredItems;
+        return craftingsTracker.getProgress();
     }
 
     @Override
@@ -93,12 +94,7 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
         if (craftingsTracker == null)
             return 0;
 
-        int interactions = 0;
-
-        for (Map.Entry<ItemStack, Integer> entry : this.itemsToCraft.entrySet())
-            interactions += Math.min(craftingsTracker.getCrafts(entry.getKey()), entry.getValue());
-
-        return interactions;
+        return craftingsTracker.getProgressValue();
     }
 
     @Override
@@ -113,15 +109,8 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
 
     @Override
     public void saveProgress(ConfigurationSection section) {
-        for (Map.Entry<SuperiorPlayer, CraftingsTracker> entry : entrySet()) {
-            String uuid = entry.getKey().getUniqueId().toString();
-            int index = 0;
-            for (Map.Entry<ItemStack, Integer> craftedEntry : entry.getValue().craftedItems.entrySet()) {
-                section.set(uuid + "." + index + ".item", craftedEntry.getKey());
-                section.set(uuid + "." + index + ".amount", craftedEntry.getValue());
-                index++;
-            }
-        }
+        for (Map.Entry<SuperiorPlayer, CraftingsTracker> entry : entrySet())
+            CountersSerializer.saveKeys(section, entry.getKey().getUniqueId().toString(), entry.getValue());
     }
 
     @Override
@@ -130,23 +119,27 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
             if (uuid.equals("players"))
                 continue;
 
-            CraftingsTracker craftingsTracker = new CraftingsTracker();
+            CraftingsTracker craftingsTracker = new CraftingsTracker(requirements);
             UUID playerUUID = UUID.fromString(uuid);
             SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(playerUUID);
 
             insertData(superiorPlayer, craftingsTracker);
 
+            if (CountersSerializer.load(section, uuid, craftingsTracker))
+                continue;
+
             for (String key : section.getConfigurationSection(uuid).getKeys(false)) {
                 ItemStack itemStack = section.getItemStack(uuid + "." + key + ".item");
-                int amount = section.getInt(uuid + "." + key + ".amount");
-                craftingsTracker.craftedItems.put(itemStack, amount);
+                int slot = itemStack == null ? Requirements.NO_SLOT : requirements.getSlot(itemStack);
+                if (slot != Requirements.NO_SLOT)
+                    craftingsTracker.track(slot, section.getInt(uuid + "." + key + ".amount"));
             }
         }
     }
 
     @Override
     public void formatItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        CraftingsTracker craftingsTracker = getOrCreate(superiorPlayer, s -> new CraftingsTracker());
+        CraftingsTracker craftingsTracker = getOrCreate(superiorPlayer, s -> new CraftingsTracker(requirements));
 
         ItemMeta itemMeta = itemStack.getItemMeta();
 
@@ -175,27 +168,28 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
         resultItem.setAmount(1);
 
         SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(e.getWhoClicked().getUniqueId());
+        int itemSlot = requirements.getSlot(resultItem);
 
-        if (e.getRawSlot() == requiredSlot && itemsToCraft.containsKey(resultItem) &&
+        if (e.getRawSlot() == requiredSlot && itemSlot != Requirements.NO_SLOT &&
                 superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this)) {
             int amountOfResult = countItems(e.getWhoClicked(), resultItem);
             Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 int afterTickAmountOfResult = countItems(e.getWhoClicked(), resultItem);
-                resultItem.setAmount(afterTickAmountOfResult - amountOfResult);
-                trackItem(superiorPlayer, resultItem);
+                trackItem(superiorPlayer, itemSlot, afterTickAmountOfResult - amountOfResult);
             }, 1L);
         }
 
     }
 
-    private void trackItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        CraftingsTracker blocksTracker = getOrCreate(superiorPlayer, s -> new CraftingsTracker());
-        blocksTracker.trackItem(itemStack);
+    private void trackItem(SuperiorPlayer superiorPlayer, int itemSlot, int amount) {
+        CraftingsTracker blocksTracker = getOrCreate(superiorPlayer, s -> new CraftingsTracker(requirements));
+        blocksTracker.track(itemSlot, amount);
+
+        completionScheduler.markDirty(superiorPlayer);
+    }
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+    private static String getItemName(ItemStack itemStack) {
+        return itemStack.getType() + ":" + itemStack.getDurability();
     }
 
     private static int countItems(HumanEntity humanEntity, ItemStack itemStack) {
@@ -224,10 +218,10 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
             try {
                 String requiredBlock = matcher.group(2).toUpperCase();
                 ItemStack itemStack = new ItemStack(Material.valueOf(requiredBlock));
-                Optional<Map.Entry<ItemStack, Integer>> entry = itemsToCraft.entrySet().stream().filter(e -> e.getKey().isSimilar(itemStack)).findAny();
-                if (entry.isPresent()) {
+                int requirement = requirements.getRequirement(itemStack);
+                if (requirement != Requirements.NO_SLOT) {
                     line = line.replace("{percentage_" + matcher.group(2) + "}",
-                            "" + (entityTracker.getCrafts(itemStack) * 100) / entry.get().getValue());
+                            "" + (entityTracker.getCount(requirements.getSlot(itemStack)) * 100) / requirements.getRequiredAmount(requirement));
                 }
             } catch (Exception ignored) {
             }
@@ -237,10 +231,10 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
             try {
                 String requiredBlock = matcher.group(2).toUpperCase();
                 ItemStack itemStack = new ItemStack(Material.valueOf(requiredBlock));
-                Optional<Map.Entry<ItemStack, Integer>> entry = itemsToCraft.entrySet().stream().filter(e -> e.getKey().isSimilar(itemStack)).findAny();
-                if (entry.isPresent()) {
+                int requirement = requirements.getRequirement(itemStack);
+                if (requirement != Requirements.NO_SLOT) {
                     line = line.replace("{value_" + matcher.group(2) + "}",
-                            "" + (entityTracker.getCrafts(itemStack)));
+                            "" + entityTracker.getCount(requirements.getSlot(itemStack)));
                 }
             } catch (Exception ignored) {
             }
@@ -249,20 +243,10 @@ public final class CraftingMissions extends Mission<CraftingMissions.CraftingsTr
         return ChatColor.translateAlternateColorCodes('&', line);
     }
 
-    public static class CraftingsTracker {
-
-        private final Map<ItemStack, Integer> craftedItems = new HashMap<>();
-
-        void trackItem(ItemStack itemStack) {
-            ItemStack keyItem = itemStack.clone();
-            keyItem.setAmount(1);
-            craftedItems.put(keyItem, craftedItems.getOrDefault(keyItem, 0) + itemStack.getAmount());
-        }
+    public static class CraftingsTracker extends CountersTracker {
 
-        int getCrafts(ItemStack itemStack) {
-            ItemStack keyItem = itemStack.clone();
-            keyItem.setAmount(1);
-            return craftedItems.getOrDefault(keyItem, 0);
+        CraftingsTracker(Requirements<ItemStack> requirements) {
+            super(requirements);
         }
 
     }
@@ -5,6 +5,7 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -44,10 +45,12 @@ public final class EnchantingMissions extends Mission<EnchantingMissions.Enchant
 
     private String enchantedPlaceholder, notEnchantedPlaceholder;
     private JavaPlugin plugin;
+    private CompletionScheduler completionScheduler;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
 
         if (!section.contains("required-enchants"))
             throw new MissionLoadException("You must have the \"required-enchants\" section in the config.");
@@ -220,10 +223,7 @@ public final class EnchantingMissions extends Mission<EnchantingMissions.Enchant
         EnchantsTracker enchantsTracker = getOrCreate(superiorPlayer, s -> new EnchantsTracker());
         enchantsTracker.track(itemStack);
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(_player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        completionScheduler.markDirty(superiorPlayer);
     }
 
     private String parsePlaceholders(EnchantsTracker enchantsTracker, String line) {
@@ -2,15 +2,27 @@ package com.bgsoftware.superiorskyblock.missions;
 
 import com.bgsoftware.superiorskyblock.api.SuperiorSkyblock;
 import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
+import com.bgsoftware.superiorskyblock.api.events.IslandDisbandEvent;
+import com.bgsoftware.superiorskyblock.api.events.IslandTransferEvent;
 import com.bgsoftware.superiorskyblock.api.island.Island;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
-import com.google.common.collect.ImmutableMap;
+import com.bgsoftware.superiorskyblock.missions.common.ChunkStorage;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
+import com.bgsoftware.superiorskyblock.missions.common.CountersJournal;
+import com.bgsoftware.superiorskyblock.missions.common.CountersSerializer;
+import com.bgsoftware.superiorskyblock.missions.common.CountersTracker;
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
+import com.bgsoftware.superiorskyblock.missions.farming.GrowthTable;
+import com.bgsoftware.superiorskyblock.missions.farming.OwnerResolutionCache;
+import com.bgsoftware.superiorskyblock.missions.farming.PlacedPlantsIndex;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.configuration.ConfigurationSection;
@@ -24,18 +36,22 @@ import org.bukkit.event.block.BlockPistonExtendEvent;
 import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,41 +67,68 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
             BlockFace.EAST, BlockFace.WEST, BlockFace.NORTH, BlockFace.SOUTH
     };
 
-    private static final Map<String, Integer> MAXIMUM_AGES = new ImmutableMap.Builder<String, Integer>()
-            .put("CARROTS", 7)
-            .put("CARROT", 7)
-            .put("CROPS", 7)
-            .put("WHEAT_SEEDS", 7)
-            .put("WHEAT", 7)
-            .put("POTATO", 7)
-            .put("POTATOES", 7)
-            .put("BEETROOT_SEEDS", 3)
-            .put("BEETROOTS", 3)
-            .put("COCOA", 2)
-            .put("COCOA_BEANS", 2)
-            .build();
+    private static final long PLACED_PLANTS_SAVE_INTERVAL = 600L;
 
     private JavaPlugin plugin;
-    private final Map<List<String>, Integer> requiredPlants = new HashMap<>();
-    private final Map<Location, UUID> playerPlacedPlants = new HashMap<>();
+    private CompletionScheduler completionScheduler;
+    private Requirements<String> requirements;
+    private int[] plantSlots;
+    private GrowthTable growthTable;
+    private final PlacedPlantsIndex playerPlacedPlants = new PlacedPlantsIndex();
+    private ChunkStorage placedPlantsStorage;
+    // Set once placed plants of the mission data were written into the chunks storage.
+    private volatile boolean legacyPlacedPlantsWritten = true;
+    // Set once grown plants of the mission data were written into the journal.
+    private volatile boolean legacyGrownPlantsWritten = true;
+    private CountersJournal grownPlantsJournal;
+    // Reused between events, as explosions and pistons remove many blocks at once.
+    private long[] removedPlantKeys = new long[16];
+    private final OwnerResolutionCache ownerResolutionCache = new OwnerResolutionCache(this::resolveOwner);
     private boolean resetAfterFinish;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this, true);
 
         if (!section.contains("required-plants"))
             throw new MissionLoadException("You must have the \"required-plants\" section in the config.");
 
+        Map<List<String>, Integer> requiredPlants = new HashMap<>();
+
         for (String key : section.getConfigurationSection("required-plants").getKeys(false)) {
-            List<String> requiredPlants = section.getStringList("required-plants." + key + ".types");
+            List<String> plants = section.getStringList("required-plants." + key + ".types");
             int requiredAmount = section.getInt("required-plants." + key + ".amount");
-            this.requiredPlants.put(requiredPlants, requiredAmount);
+            requiredPlants.put(plants, requiredAmount);
+        }
+
+        requirements = Requirements.fromNames(requiredPlants);
+
+        Material[] materials = Material.values();
+        plantSlots = new int[materials.length];
+        for (Material material : materials)
+            plantSlots[material.ordinal()] = requirements.getSlot(material.name());
+
+        Map<String, Integer> maximumAges = new HashMap<>();
+
+        if (section.isConfigurationSection("maximum-ages")) {
+            for (String plant : section.getConfigurationSection("maximum-ages").getKeys(false))
+                maximumAges.put(plant, section.getInt("maximum-ages." + plant));
         }
 
+        growthTable = GrowthTable.create(maximumAges);
+
         resetAfterFinish = section.getBoolean("reset-after-finish", false);
 
         Bukkit.getPluginManager().registerEvents(this, plugin);
+        Bukkit.getScheduler().runTaskTimer(plugin, this::savePlacedPlants,
+                PLACED_PLANTS_SAVE_INTERVAL, PLACED_PLANTS_SAVE_INTERVAL);
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            for (World world : Bukkit.getWorlds()) {
+                for (Chunk chunk : world.getLoadedChunks())
+                    loadPlacedPlants(chunk);
+            }
+        });
     }
 
     @Override
@@ -95,15 +138,7 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
         if (farmingTracker == null)
             return 0.0;
 
-        int requiredEntities = 0;
-        int kills = 0;
-
-        for (Map.Entry<List<String>, Integer> requiredPlant : this.requiredPlants.entrySet()) {
-            requiredEntities += requiredPlant.getValue();
-            kills += Math.min(farmingTracker.getPlants(requiredPlant.getKey()), requiredPlant.getValue());
-        }
-
-        return (double) kills / requiredEntities;
+        return farmingTracker.getProgress();
     }
 
     @Override
@@ -113,12 +148,7 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
         if (farmingTracker == null)
             return 0;
 
-        int kills = 0;
-
-        for (Map.Entry<List<String>, Integer> requiredPlant : this.requiredPlants.entrySet())
-            kills += Math.min(farmingTracker.getPlants(requiredPlant.getKey()), requiredPlant.getValue());
-
-        return kills;
+        return farmingTracker.getProgressValue();
     }
 
     @Override
@@ -134,49 +164,61 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
 
     @Override
     public void saveProgress(ConfigurationSection section) {
-        for (Map.Entry<SuperiorPlayer, FarmingTracker> entry : entrySet()) {
-            String uuid = entry.getKey().getUniqueId().toString();
-            for (Map.Entry<String, Integer> brokenEntry : entry.getValue().farmingTracker.entrySet()) {
-                section.set("grown-plants." + uuid + "." + brokenEntry.getKey(), brokenEntry.getValue());
-            }
+        saveGrownPlants();
+
+        // Grown plants were saved into the mission data before, and are kept there until they were migrated.
+        if (legacyGrownPlantsWritten)
+            section.set("grown-plants", null);
+
+        completionScheduler.savePendingPlayers(section, "pending-completions");
+
+        // Placed plants were saved into the mission data before, and are kept there until they were migrated.
+        if (legacyPlacedPlantsWritten)
+            section.set("placed-plants", null);
+
+        // The plugin is only disabled while it saves the data of missions when it shuts down. The dirty chunks
+        // are then collected even if the save is not done on the main thread, as the storage is closed after.
+        if (!plugin.isEnabled()) {
+            savePlacedPlants();
+            getPlacedPlantsStorage().close();
+        } else if (Bukkit.isPrimaryThread()) {
+            savePlacedPlants();
         }
-        for (Map.Entry<Location, UUID> placedBlock : playerPlacedPlants.entrySet())
-            section.set("placed-plants." + parseLocation(placedBlock.getKey()), placedBlock.getValue().toString());
     }
 
     @Override
     public void loadProgress(ConfigurationSection section) {
         ConfigurationSection grownPlants = section.getConfigurationSection("grown-plants");
         if (grownPlants != null) {
+            legacyGrownPlantsWritten = false;
             for (String uuid : grownPlants.getKeys(false)) {
-                FarmingTracker farmingTracker = new FarmingTracker();
+                FarmingTracker farmingTracker = new FarmingTracker(requirements);
                 UUID playerUUID = UUID.fromString(uuid);
                 SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(playerUUID);
 
                 insertData(superiorPlayer, farmingTracker);
 
+                if (CountersSerializer.load(grownPlants, uuid, farmingTracker))
+                    continue;
+
                 for (String key : grownPlants.getConfigurationSection(uuid).getKeys(false)) {
-                    farmingTracker.farmingTracker.put(key, grownPlants.getInt(uuid + "." + key));
+                    int slot = requirements.getSlotByName(key);
+                    if (slot != Requirements.NO_SLOT)
+                        farmingTracker.track(slot, grownPlants.getInt(uuid + "." + key));
                 }
             }
         }
 
-        ConfigurationSection placedPlants = section.getConfigurationSection("placed-plants");
-        if (placedPlants != null) {
-            for (String locationKey : placedPlants.getKeys(false)) {
-                Location location = getLocation(locationKey);
-                try {
-                    if (location != null)
-                        playerPlacedPlants.put(location, UUID.fromString(placedPlants.getString(locationKey)));
-                } catch (IllegalArgumentException ignored) {
-                }
-            }
-        }
+        loadGrownPlants();
+
+        completionScheduler.loadPendingPlayers(section, "pending-completions");
+
+        migratePlacedPlants(section.getConfigurationSection("placed-plants"));
     }
 
     @Override
     public void formatItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        FarmingTracker farmingTracker = getOrCreate(superiorPlayer, s -> new FarmingTracker());
+        FarmingTracker farmingTracker = getOrCreate(superiorPlayer, s -> new FarmingTracker(requirements));
 
         ItemMeta itemMeta = itemStack.getItemMeta();
 
@@ -196,17 +238,20 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent e) {
         Material blockType = e.getBlock().getType();
+        int plantKind = PlacedPlantsIndex.KIND_PLANT;
 
         switch (blockType) {
             case PUMPKIN_STEM:
                 blockType = Material.MELON;
+                plantKind = PlacedPlantsIndex.KIND_PUMPKIN_STEM;
                 break;
             case MELON_STEM:
                 blockType = Material.PUMPKIN;
+                plantKind = PlacedPlantsIndex.KIND_MELON_STEM;
                 break;
         }
 
-        if (!isMissionPlant(blockType))
+        if (getPlantSlot(blockType) == Requirements.NO_SLOT)
             return;
 
         UUID placerUUID = getPlacerUUID(e.getPlayer());
@@ -214,93 +259,112 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
         if (placerUUID == null)
             return;
 
-        playerPlacedPlants.put(e.getBlock().getLocation(), placerUUID);
+        Block block = e.getBlock();
+        playerPlacedPlants.put(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ(), placerUUID, plantKind);
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent e) {
-        playerPlacedPlants.remove(e.getBlock().getLocation());
+        removePlacedPlant(e.getBlock());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockExplode(EntityExplodeEvent e) {
-        for (Block block : e.blockList())
-            playerPlacedPlants.remove(block.getLocation());
+        removePlacedPlants(e.getLocation().getWorld().getUID(), e.blockList());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPistonRetract(BlockPistonRetractEvent e) {
-        for (Block block : e.getBlocks())
-            playerPlacedPlants.remove(block.getLocation());
+        removePlacedPlants(e.getBlock().getWorld().getUID(), e.getBlocks());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPistonRetract(BlockPistonExtendEvent e) {
-        for (Block block : e.getBlocks())
-            playerPlacedPlants.remove(block.getLocation());
+        removePlacedPlants(e.getBlock().getWorld().getUID(), e.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent e) {
+        loadPlacedPlants(e.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        playerPlacedPlants.unloadChunk(e.getWorld().getUID(), e.getChunk().getX(), e.getChunk().getZ(),
+                getPlacedPlantsStorage());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlantGrow(BlockGrowEvent e) {
         Material blockType = e.getNewState().getType();
         int age = e.getNewState().getRawData();
+        int plantSlot = getPlantSlot(blockType);
+
+        if (plantSlot == Requirements.NO_SLOT)
+            return;
 
-        if (!isMissionPlant(blockType))
+        Block block = e.getBlock();
+        UUID worldId = block.getWorld().getUID();
+        byte growthType = growthTable.getGrowthType(blockType);
+        boolean fruit = growthType == GrowthTable.GROWTH_MELON || growthType == GrowthTable.GROWTH_PUMPKIN;
+
+        // Most plants grow in chunks without any placed plants, so they are rejected before anything else.
+        if (!hasPlacedPlants(worldId, block.getX(), block.getZ(), fruit))
             return;
 
-        if (age < MAXIMUM_AGES.getOrDefault(blockType.name(), 0))
+        if (age < growthTable.getMaximumAge(blockType))
             return;
 
-        Location placedBlockLocation = e.getBlock().getLocation();
+        UUID placerUUID;
 
-        switch (blockType) {
-            case CACTUS:
-            case SUGAR_CANE:
-                placedBlockLocation = placedBlockLocation.subtract(0, 1, 0);
+        switch (growthType) {
+            case GrowthTable.GROWTH_ABOVE_BASE:
+                placerUUID = playerPlacedPlants.get(worldId, block.getX(), block.getY() - 1, block.getZ());
                 break;
-            case MELON:
-            case PUMPKIN:
-                Material stemType = blockType == Material.PUMPKIN ? Material.PUMPKIN_STEM : Material.MELON_STEM;
-
-                for (BlockFace blockFace : NEARBY_BLOCKS) {
-                    Block nearbyBlock = e.getBlock().getRelative(blockFace);
-                    if (nearbyBlock.getType() == stemType) {
-                        placedBlockLocation = nearbyBlock.getLocation();
-                        break;
-                    }
-                }
-
+            case GrowthTable.GROWTH_MELON:
+            case GrowthTable.GROWTH_PUMPKIN:
+                boolean pumpkin = growthType == GrowthTable.GROWTH_PUMPKIN;
+                placerUUID = playerPlacedPlants.getStemOwner(worldId, block.getX(), block.getY(), block.getZ(), pumpkin);
+                if (placerUUID == null)
+                    placerUUID = findUnknownStemOwner(worldId, block, pumpkin);
+                break;
+            default:
+                placerUUID = playerPlacedPlants.get(worldId, block.getX(), block.getY(), block.getZ());
                 break;
         }
 
-        UUID placerUUID = playerPlacedPlants.get(placedBlockLocation);
-
         if (placerUUID == null)
             return;
 
-        SuperiorPlayer superiorPlayer;
+        SuperiorPlayer superiorPlayer = ownerResolutionCache.get(placerUUID);
 
-        if (getIslandMission()) {
-            Island island = SuperiorSkyblockAPI.getIslandByUUID(placerUUID);
+        if (superiorPlayer == null || !superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
+            return;
 
-            if (island == null)
-                return;
+        FarmingTracker farmingTracker = getOrCreate(superiorPlayer, s -> new FarmingTracker(requirements));
+        farmingTracker.track(plantSlot, 1);
 
-            superiorPlayer = island.getOwner();
-        } else {
-            superiorPlayer = SuperiorSkyblockAPI.getPlayer(placerUUID);
-        }
+        completionScheduler.markDirty(superiorPlayer);
+    }
 
-        if (!superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
-            return;
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandTransfer(IslandTransferEvent e) {
+        ownerResolutionCache.invalidate(e.getIsland().getUniqueId());
+    }
 
-        FarmingTracker farmingTracker = getOrCreate(superiorPlayer, s -> new FarmingTracker());
-        farmingTracker.track(blockType.name());
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIslandDisband(IslandDisbandEvent e) {
+        ownerResolutionCache.invalidate(e.getIsland().getUniqueId());
+    }
+
+    @Nullable
+    private SuperiorPlayer resolveOwner(UUID placerUUID) {
+        if (!getIslandMission())
+            return SuperiorSkyblockAPI.getPlayer(placerUUID);
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        Island island = SuperiorSkyblockAPI.getIslandByUUID(placerUUID);
+
+        return island == null ? null : island.getOwner();
     }
 
     private UUID getPlacerUUID(Player player) {
@@ -318,8 +382,153 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
         }
     }
 
-    private String parseLocation(Location location) {
-        return location.getWorld().getName() + ";" + location.getBlockX() + ";" + location.getBlockY() + ";" + location.getBlockZ();
+    private void removePlacedPlant(Block block) {
+        playerPlacedPlants.remove(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ());
+    }
+
+    private void removePlacedPlants(UUID worldId, List<Block> blocks) {
+        if (blocks.isEmpty())
+            return;
+
+        int blocksCount = blocks.size();
+
+        if (removedPlantKeys.length < blocksCount)
+            removedPlantKeys = new long[Math.max(blocksCount, removedPlantKeys.length * 2)];
+
+        for (int i = 0; i < blocksCount; ++i) {
+            Block block = blocks.get(i);
+            removedPlantKeys[i] = PlacedPlantsIndex.packBlock(block.getX(), block.getY(), block.getZ());
+        }
+
+        playerPlacedPlants.removeAll(worldId, removedPlantKeys, blocksCount);
+    }
+
+    private void saveGrownPlants() {
+        CountersJournal grownPlantsJournal = getGrownPlantsJournal();
+        Set<UUID> removedPlayers = grownPlantsJournal.getPlayers();
+        // Trackers are marked as saved only once the journal was written.
+        Map<FarmingTracker, Integer> savedTrackers = new HashMap<>();
+
+        for (Map.Entry<SuperiorPlayer, FarmingTracker> entry : entrySet()) {
+            UUID playerUUID = entry.getKey().getUniqueId();
+            FarmingTracker farmingTracker = entry.getValue();
+
+            removedPlayers.remove(playerUUID);
+
+            if (farmingTracker.isDirty()) {
+                savedTrackers.put(farmingTracker, farmingTracker.getModifications());
+                grownPlantsJournal.append(playerUUID, CountersSerializer.serialize(farmingTracker));
+            }
+        }
+
+        for (UUID playerUUID : removedPlayers)
+            grownPlantsJournal.appendRemoved(playerUUID);
+
+        if (grownPlantsJournal.shouldCompact()) {
+            Map<UUID, byte[]> grownPlants = new HashMap<>();
+            for (Map.Entry<SuperiorPlayer, FarmingTracker> entry : entrySet()) {
+                FarmingTracker farmingTracker = entry.getValue();
+                savedTrackers.put(farmingTracker, farmingTracker.getModifications());
+                grownPlants.put(entry.getKey().getUniqueId(), CountersSerializer.serialize(farmingTracker));
+            }
+            grownPlantsJournal.compact(grownPlants);
+        }
+
+        // The journal is written by the writer of the placed plants storage, which is waited for when the
+        // plugin disables.
+        getPlacedPlantsStorage().afterWrites(() -> {
+            try {
+                grownPlantsJournal.flush();
+            } catch (IOException error) {
+                plugin.getLogger().log(Level.WARNING, "Failed to save grown plants of " + getName() + ":", error);
+                return;
+            }
+
+            savedTrackers.forEach(FarmingTracker::markSaved);
+            legacyGrownPlantsWritten = true;
+        });
+    }
+
+    private void loadGrownPlants() {
+        Map<UUID, byte[]> grownPlants;
+
+        try {
+            grownPlants = getGrownPlantsJournal().read();
+        } catch (IOException error) {
+            plugin.getLogger().log(Level.WARNING, "Failed to load grown plants of " + getName() + ":", error);
+            return;
+        }
+
+        for (Map.Entry<UUID, byte[]> entry : grownPlants.entrySet()) {
+            FarmingTracker farmingTracker = new FarmingTracker(requirements);
+
+            try {
+                CountersSerializer.deserialize(farmingTracker, entry.getValue());
+            } catch (IOException error) {
+                plugin.getLogger().log(Level.WARNING, "Failed to load grown plants of " + entry.getKey() + ":", error);
+                continue;
+            }
+
+            farmingTracker.markSaved();
+            insertData(SuperiorSkyblockAPI.getPlayer(entry.getKey()), farmingTracker);
+        }
+    }
+
+    private CountersJournal getGrownPlantsJournal() {
+        if (grownPlantsJournal == null) {
+            grownPlantsJournal = new CountersJournal(new File(plugin.getDataFolder(),
+                    "datastore/grown-plants/" + getName() + ".journal"), plugin.getLogger());
+        }
+
+        return grownPlantsJournal;
+    }
+
+    private void loadPlacedPlants(Chunk chunk) {
+        playerPlacedPlants.loadChunk(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ(), getPlacedPlantsStorage());
+    }
+
+    private void savePlacedPlants() {
+        playerPlacedPlants.saveDirtyChunks(getPlacedPlantsStorage());
+    }
+
+    private ChunkStorage getPlacedPlantsStorage() {
+        // The name of the mission is used for the folder, so the storage is created once it is first used.
+        if (placedPlantsStorage == null) {
+            placedPlantsStorage = new ChunkStorage(new File(plugin.getDataFolder(), "datastore/placed-plants/" + getName()),
+                    "placed plants", plugin.getLogger());
+        }
+
+        return placedPlantsStorage;
+    }
+
+    /**
+     * Move placed plants that were saved into the mission data into the chunks storage.
+     */
+    private void migratePlacedPlants(@Nullable ConfigurationSection placedPlants) {
+        if (placedPlants == null)
+            return;
+
+        PlacedPlantsIndex migratedPlants = new PlacedPlantsIndex();
+
+        for (String locationKey : placedPlants.getKeys(false)) {
+            Location location = getLocation(locationKey);
+            try {
+                if (location != null && location.getWorld() != null) {
+                    migratedPlants.put(location.getWorld().getUID(), location.getBlockX(), location.getBlockY(),
+                            location.getBlockZ(), UUID.fromString(placedPlants.getString(locationKey)),
+                            PlacedPlantsIndex.KIND_UNKNOWN);
+                }
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        ChunkStorage placedPlantsStorage = getPlacedPlantsStorage();
+        // Plants that were already migrated before should not be overridden if the migration is done again.
+        migratedPlants.loadStoredChunks(placedPlantsStorage);
+        migratedPlants.saveDirtyChunks(placedPlantsStorage);
+
+        legacyPlacedPlantsWritten = false;
+        placedPlantsStorage.afterWrites(() -> legacyPlacedPlantsWritten = true);
     }
 
     @Nullable
@@ -336,16 +545,56 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
         }
     }
 
-    private boolean isMissionPlant(Material blockType) {
-        if (blockType == null)
-            return false;
+    private int getPlantSlot(Material blockType) {
+        return blockType == null ? Requirements.NO_SLOT : plantSlots[blockType.ordinal()];
+    }
 
-        for (List<String> requiredPlant : requiredPlants.keySet()) {
-            if (requiredPlant.contains(blockType.name()) || requiredPlant.contains("all") || requiredPlant.contains("ALL"))
-                return true;
+    /**
+     * Find the stem of a fruit between plants that were stored before the kinds of plants were stored.
+     * Found stems are given their kind, so later fruits of them are found in the index.
+     */
+    @Nullable
+    private UUID findUnknownStemOwner(UUID worldId, Block block, boolean pumpkin) {
+        int chunkX = block.getX() >> 4, chunkZ = block.getZ() >> 4;
+
+        if (!playerPlacedPlants.hasUnknownPlants(worldId, chunkX, chunkZ) &&
+                !playerPlacedPlants.hasUnknownPlants(worldId, (block.getX() + 1) >> 4, chunkZ) &&
+                !playerPlacedPlants.hasUnknownPlants(worldId, (block.getX() - 1) >> 4, chunkZ) &&
+                !playerPlacedPlants.hasUnknownPlants(worldId, chunkX, (block.getZ() + 1) >> 4) &&
+                !playerPlacedPlants.hasUnknownPlants(worldId, chunkX, (block.getZ() - 1) >> 4))
+            return null;
+
+        Material stemType = pumpkin ? Material.PUMPKIN_STEM : Material.MELON_STEM;
+
+        for (BlockFace blockFace : NEARBY_BLOCKS) {
+            Block nearbyBlock = block.getRelative(blockFace);
+            if (nearbyBlock.getType() == stemType) {
+                UUID placerUUID = playerPlacedPlants.get(worldId, nearbyBlock.getX(), nearbyBlock.getY(), nearbyBlock.getZ());
+                if (placerUUID != null) {
+                    playerPlacedPlants.setKind(worldId, nearbyBlock.getX(), nearbyBlock.getY(), nearbyBlock.getZ(),
+                            pumpkin ? PlacedPlantsIndex.KIND_PUMPKIN_STEM : PlacedPlantsIndex.KIND_MELON_STEM);
+                }
+                return placerUUID;
+            }
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Check whether the chunk of a block may contain placed plants.
+     * When nearby blocks are included, the chunks of the blocks next to the block are checked as well.
+     */
+    private boolean hasPlacedPlants(UUID worldId, int x, int z, boolean includeNearby) {
+        int chunkX = x >> 4, chunkZ = z >> 4;
+
+        if (playerPlacedPlants.hasPlants(worldId, chunkX, chunkZ))
+            return true;
+
+        return includeNearby && (playerPlacedPlants.hasPlants(worldId, (x + 1) >> 4, chunkZ) ||
+                playerPlacedPlants.hasPlants(worldId, (x - 1) >> 4, chunkZ) ||
+                playerPlacedPlants.hasPlants(worldId, chunkX, (z + 1) >> 4) ||
+                playerPlacedPlants.hasPlants(worldId, chunkX, (z - 1) >> 4));
     }
 
     private String parsePlaceholders(FarmingTracker farmingTracker, String line) {
@@ -353,44 +602,29 @@ public final class FarmingMissions extends Mission<FarmingMissions.FarmingTracke
 
         if (matcher.matches()) {
             String requiredBlock = matcher.group(2).toUpperCase();
-            Optional<Map.Entry<List<String>, Integer>> entry = requiredPlants.entrySet().stream().filter(e -> e.getKey().contains(requiredBlock)).findAny();
-            if (entry.isPresent()) {
+            int requirement = requirements.getRequirementByName(requiredBlock);
+            if (requirement != Requirements.NO_SLOT) {
                 line = line.replace("{percentage_" + matcher.group(2) + "}",
-                        "" + (farmingTracker.getPlants(Collections.singletonList(requiredBlock)) * 100) / entry.get().getValue());
+                        "" + (farmingTracker.getCountByName(requiredBlock) * 100) / requirements.getRequiredAmount(requirement));
             }
         }
 
         if ((matcher = valuePattern.matcher(line)).matches()) {
             String requiredBlock = matcher.group(2).toUpperCase();
-            Optional<Map.Entry<List<String>, Integer>> entry = requiredPlants.entrySet().stream().filter(e -> e.getKey().contains(requiredBlock)).findFirst();
-            if (entry.isPresent()) {
+            int requirement = requirements.getRequirementByName(requiredBlock);
+            if (requirement != Requirements.NO_SLOT) {
                 line = line.replace("{value_" + matcher.group(2) + "}",
-                        "" + farmingTracker.getPlants(Collections.singletonList(requiredBlock)));
+                        "" + farmingTracker.getCountByName(requiredBlock));
             }
         }
 
         return ChatColor.translateAlternateColorCodes('&', line);
     }
 
-    public static class FarmingTracker {
-
-        private final Map<String, Integer> farmingTracker = new HashMap<>();
-
-        void track(String blockType) {
-            int newAmount = 1 + farmingTracker.getOrDefault(blockType, 0);
-            farmingTracker.put(blockType, newAmount);
-        }
-
-        int getPlants(List<String> entities) {
-            int amount = 0;
-            boolean all = entities.contains("ALL") || entities.contains("all");
-
-            for (String entity : farmingTracker.keySet()) {
-                if (all || entities.contains(entity))
-                    amount += farmingTracker.get(entity);
-            }
+    public static class FarmingTracker extends CountersTracker {
 
-            return amount;
+        FarmingTracker(Requirements<String> requirements) {
+            super(requirements);
         }
 
     }
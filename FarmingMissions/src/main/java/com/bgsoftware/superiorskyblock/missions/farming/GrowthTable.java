@@ -0,0 +1,95 @@
+package com.bgsoftware.superiorskyblock.missions.farming;
+
+import com.google.common.collect.ImmutableMap;
+import org.bukkit.Material;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Classifies growing plants by the ordinal of their material, so growth does not look up material names.
+ * The default table is built once from the materials of the running server version.
+ */
+public final class GrowthTable {
+
+    /**
+     * Plants that are tracked at the block they grow at.
+     */
+    public static final byte GROWTH_CROP = 0;
+    /**
+     * Plants that grow on top of the placed block, such as cactus and sugar cane.
+     */
+    public static final byte GROWTH_ABOVE_BASE = 1;
+    public static final byte GROWTH_MELON = 2;
+    public static final byte GROWTH_PUMPKIN = 3;
+
+    private static final Map<String, Integer> DEFAULT_MAXIMUM_AGES = new ImmutableMap.Builder<String, Integer>()
+            .put("CARROTS", 7)
+            .put("CARROT", 7)
+            .put("CROPS", 7)
+            .put("WHEAT_SEEDS", 7)
+            .put("WHEAT", 7)
+            .put("POTATO", 7)
+            .put("POTATOES", 7)
+            .put("BEETROOT_SEEDS", 3)
+            .put("BEETROOTS", 3)
+            .put("COCOA", 2)
+            .put("COCOA_BEANS", 2)
+            .build();
+
+    private static final Map<String, Byte> GROWTH_TYPES = new ImmutableMap.Builder<String, Byte>()
+            .put("CACTUS", GROWTH_ABOVE_BASE)
+            .put("SUGAR_CANE", GROWTH_ABOVE_BASE)
+            .put("MELON", GROWTH_MELON)
+            .put("PUMPKIN", GROWTH_PUMPKIN)
+            .build();
+
+    private static final GrowthTable DEFAULT_TABLE = new GrowthTable();
+
+    private final int[] maximumAges;
+    private final byte[] growthTypes;
+
+    private GrowthTable() {
+        Material[] materials = Material.values();
+        this.maximumAges = new int[materials.length];
+        this.growthTypes = new byte[materials.length];
+
+        for (Material material : materials) {
+            maximumAges[material.ordinal()] = DEFAULT_MAXIMUM_AGES.getOrDefault(material.name(), 0);
+            growthTypes[material.ordinal()] = GROWTH_TYPES.getOrDefault(material.name(), GROWTH_CROP);
+        }
+    }
+
+    private GrowthTable(GrowthTable other) {
+        this.maximumAges = Arrays.copyOf(other.maximumAges, other.maximumAges.length);
+        this.growthTypes = other.growthTypes;
+    }
+
+    /**
+     * Create a table with the default maximum ages, overridden by the given ones.
+     * Materials that do not exist in the running server version are ignored.
+     */
+    public static GrowthTable create(Map<String, Integer> maximumAges) {
+        if (maximumAges.isEmpty())
+            return DEFAULT_TABLE;
+
+        GrowthTable growthTable = new GrowthTable(DEFAULT_TABLE);
+
+        for (Map.Entry<String, Integer> maximumAge : maximumAges.entrySet()) {
+            Material material = Material.matchMaterial(maximumAge.getKey());
+            if (material != null)
+                growthTable.maximumAges[material.ordinal()] = maximumAge.getValue();
+        }
+
+        return growthTable;
+    }
+
+    public int getMaximumAge(Material material) {
+        return maximumAges[material.ordinal()];
+    }
+
+    public byte getGrowthType(Material material) {
+        return growthTypes[material.ordinal()];
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.bgsoftware.superiorskyblock.missions.farming;
+
+import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caches the player that owners of placed plants resolve to.
+ * Entries expire shortly after they were resolved, and are invalidated when the island of an owner changes.
+ * Whether the player can progress the mission is not cached, so players are counted as soon as they can.
+ * Entries may be invalidated from other threads than the one that resolves owners.
+ */
+public final class OwnerResolutionCache {
+
+    private static final long EXPIRE_TIME = TimeUnit.SECONDS.toNanos(5);
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Function<UUID, SuperiorPlayer> resolver;
+    private long nextPruneTime = System.nanoTime() + EXPIRE_TIME;
+
+    public OwnerResolutionCache(Function<UUID, SuperiorPlayer> resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Get the player an owner resolves to.
+     *
+     * @return The player, or null if the owner cannot be resolved.
+     */
+    @Nullable
+    public SuperiorPlayer get(UUID owner) {
+        long currentTime = System.nanoTime();
+
+        if (currentTime - nextPruneTime >= 0) {
+            entries.values().removeIf(entry -> currentTime - entry.expireTime >= 0);
+            nextPruneTime = currentTime + EXPIRE_TIME;
+        }
+
+        Entry entry = entries.get(owner);
+
+        if (entry == null || currentTime - entry.expireTime >= 0) {
+            entry = new Entry(resolver.apply(owner), currentTime + EXPIRE_TIME);
+            entries.put(owner, entry);
+        }
+
+        return entry.superiorPlayer;
+    }
+
+    public void invalidate(UUID owner) {
+        entries.remove(owner);
+    }
+
+    private static final class Entry {
+
+        private final SuperiorPlayer superiorPlayer;
+        private final long expireTime;
+
+        Entry(SuperiorPlayer superiorPlayer, long expireTime) {
+            this.superiorPlayer = superiorPlayer;
+            this.expireTime = expireTime;
+        }
+
+    }
+
+}
@@ -0,0 +1,445 @@
+package com.bgsoftware.superiorskyblock.missions.farming;
+
+import com.bgsoftware.superiorskyblock.missions.common.ChunkStorage;
+import com.bgsoftware.superiorskyblock.missions.common.LongIntMap;
+import com.bgsoftware.superiorskyblock.missions.common.LongObjectMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Index of player-placed plants, split by world and chunk.
+ * Only chunks that are loaded are kept in memory; plants are keyed by their position inside their chunk
+ * and store the interned id of their owner together with their kind.
+ * Positions that fruits can grow at are indexed to the stems next to them, so the owner of a fruit can be
+ * found without looking at the world.
+ */
+public final class PlacedPlantsIndex {
+
+    /**
+     * Plants that were stored before kinds were stored, which may be stems.
+     */
+    public static final int KIND_UNKNOWN = 0;
+    public static final int KIND_PLANT = 1;
+    public static final int KIND_MELON_STEM = 2;
+    public static final int KIND_PUMPKIN_STEM = 3;
+
+    private static final String[] KIND_SUFFIXES = new String[]{"", ";PLANT", ";MELON_STEM", ";PUMPKIN_STEM"};
+
+    private static final int NONE = ChunkStorage.NONE;
+    private static final int KIND_SHIFT = 28;
+    private static final int OWNER_MASK = (1 << KIND_SHIFT) - 1;
+
+    // Offsets from a fruit to the stems that can grow it, in the order stems are looked for.
+    private static final int[] STEM_OFFSETS_X = new int[]{1, -1, 0, 0};
+    private static final int[] STEM_OFFSETS_Z = new int[]{0, 0, -1, 1};
+
+    private final Map<UUID, LongObjectMap<ChunkSection>> worlds = new HashMap<>();
+    private final Map<UUID, LongIntMap> fruitStems = new HashMap<>();
+    private final PlantOwners owners = new PlantOwners();
+
+    public UUID get(UUID worldId, int x, int y, int z) {
+        ChunkSection chunkSection = getSection(worldId, x >> 4, z >> 4);
+
+        if (chunkSection == null)
+            return null;
+
+        int value = chunkSection.plants.get(ChunkStorage.ChunkData.packPosition(x, y, z));
+
+        return value == NONE ? null : owners.getOwner(value & OWNER_MASK);
+    }
+
+    public void put(UUID worldId, int x, int y, int z, UUID owner, int kind) {
+        ChunkSection chunkSection = getOrCreateSection(worldId, x >> 4, z >> 4);
+        int value = owners.acquire(owner) | kind << KIND_SHIFT;
+        int oldValue = chunkSection.plants.put(ChunkStorage.ChunkData.packPosition(x, y, z), value);
+
+        if (oldValue != NONE)
+            onPlantRemove(worldId, chunkSection, x, y, z, oldValue);
+
+        onPlantAdd(worldId, chunkSection, x, y, z, value);
+        chunkSection.dirty = true;
+    }
+
+    public boolean remove(UUID worldId, int x, int y, int z) {
+        ChunkSection chunkSection = getSection(worldId, x >> 4, z >> 4);
+
+        if (chunkSection == null)
+            return false;
+
+        int oldValue = chunkSection.plants.remove(ChunkStorage.ChunkData.packPosition(x, y, z));
+
+        if (oldValue == NONE)
+            return false;
+
+        onPlantRemove(worldId, chunkSection, x, y, z, oldValue);
+        chunkSection.dirty = true;
+
+        return true;
+    }
+
+    /**
+     * Remove multiple plants of a world, given by their packed coordinates.
+     * Consecutive plants of the same chunk share a single chunk lookup, and chunks without plants are skipped.
+     *
+     * @return The amount of plants that were removed.
+     */
+    public int removeAll(UUID worldId, long[] blockKeys, int count) {
+        LongObjectMap<ChunkSection> chunks = worlds.get(worldId);
+
+        if (chunks == null)
+            return 0;
+
+        ChunkSection chunkSection = null;
+        long lastChunkKey = 0;
+        int removedPlants = 0;
+
+        for (int i = 0; i < count; ++i) {
+            long blockKey = blockKeys[i];
+            int x = getBlockX(blockKey), y = getBlockY(blockKey), z = getBlockZ(blockKey);
+            long chunkKey = packChunk(x >> 4, z >> 4);
+
+            if (i == 0 || chunkKey != lastChunkKey) {
+                chunkSection = chunks.get(chunkKey);
+                lastChunkKey = chunkKey;
+            }
+
+            if (chunkSection == null || chunkSection.plants.isEmpty())
+                continue;
+
+            int oldValue = chunkSection.plants.remove(ChunkStorage.ChunkData.packPosition(x, y, z));
+
+            if (oldValue != NONE) {
+                onPlantRemove(worldId, chunkSection, x, y, z, oldValue);
+                chunkSection.dirty = true;
+                removedPlants++;
+            }
+        }
+
+        return removedPlants;
+    }
+
+    /**
+     * Set the kind of a plant that is already in the index.
+     */
+    public void setKind(UUID worldId, int x, int y, int z, int kind) {
+        ChunkSection chunkSection = getSection(worldId, x >> 4, z >> 4);
+
+        if (chunkSection == null)
+            return;
+
+        long position = ChunkStorage.ChunkData.packPosition(x, y, z);
+        int oldValue = chunkSection.plants.get(position);
+
+        if (oldValue == NONE || oldValue >>> KIND_SHIFT == kind)
+            return;
+
+        int value = (oldValue & OWNER_MASK) | kind << KIND_SHIFT;
+        chunkSection.plants.put(position, value);
+        owners.retain(value & OWNER_MASK);
+
+        onPlantRemove(worldId, chunkSection, x, y, z, oldValue);
+        onPlantAdd(worldId, chunkSection, x, y, z, value);
+        chunkSection.dirty = true;
+    }
+
+    /**
+     * Get the owner of a placed stem that can grow a fruit at the given position.
+     *
+     * @param pumpkin Whether the fruit is a pumpkin or a melon.
+     */
+    public UUID getStemOwner(UUID worldId, int x, int y, int z, boolean pumpkin) {
+        LongIntMap worldFruitStems = fruitStems.get(worldId);
+
+        if (worldFruitStems == null)
+            return null;
+
+        int stemsMask = worldFruitStems.get(packBlock(x, y, z));
+
+        if (stemsMask == NONE)
+            return null;
+
+        stemsMask = pumpkin ? stemsMask >> 4 : stemsMask & 15;
+
+        for (int i = 0; i < STEM_OFFSETS_X.length; ++i) {
+            if ((stemsMask & 1 << i) != 0)
+                return get(worldId, x + STEM_OFFSETS_X[i], y, z + STEM_OFFSETS_Z[i]);
+        }
+
+        return null;
+    }
+
+    /**
+     * Check whether a chunk has any placed plants, without allocating.
+     */
+    public boolean hasPlants(UUID worldId, int chunkX, int chunkZ) {
+        ChunkSection chunkSection = getSection(worldId, chunkX, chunkZ);
+        return chunkSection != null && !chunkSection.plants.isEmpty();
+    }
+
+    /**
+     * Check whether a chunk has any placed plants of an unknown kind.
+     */
+    public boolean hasUnknownPlants(UUID worldId, int chunkX, int chunkZ) {
+        ChunkSection chunkSection = getSection(worldId, chunkX, chunkZ);
+        return chunkSection != null && chunkSection.unknownPlants > 0;
+    }
+
+    /**
+     * Get the amount of distinct owners of the plants that are currently loaded.
+     */
+    public int getOwnersCount() {
+        return owners.size();
+    }
+
+    public void loadChunk(UUID worldId, int chunkX, int chunkZ, ChunkStorage storage) {
+        ChunkSection chunkSection = getSection(worldId, chunkX, chunkZ);
+
+        if (chunkSection == null) {
+            chunkSection = new ChunkSection();
+            if (!chunkSection.read(worldId, chunkX, chunkZ, storage))
+                return;
+            worlds.computeIfAbsent(worldId, w -> new LongObjectMap<>(64)).put(packChunk(chunkX, chunkZ), chunkSection);
+        } else {
+            chunkSection.read(worldId, chunkX, chunkZ, storage);
+        }
+    }
+
+    /**
+     * Read the stored plants of all chunks in the index, without overriding the plants that are already in it.
+     */
+    public void loadStoredChunks(ChunkStorage storage) {
+        for (Map.Entry<UUID, LongObjectMap<ChunkSection>> worldEntry : worlds.entrySet()) {
+            UUID worldId = worldEntry.getKey();
+            worldEntry.getValue().forEach((chunkKey, chunkSection) ->
+                    chunkSection.read(worldId, (int) (chunkKey >> 32), (int) chunkKey, storage));
+        }
+    }
+
+    /**
+     * Release the section of a chunk, and write it if it was changed since it was last saved.
+     */
+    public void unloadChunk(UUID worldId, int chunkX, int chunkZ, ChunkStorage storage) {
+        LongObjectMap<ChunkSection> chunks = worlds.get(worldId);
+
+        if (chunks == null)
+            return;
+
+        ChunkSection chunkSection = chunks.remove(packChunk(chunkX, chunkZ));
+
+        if (chunks.isEmpty())
+            worlds.remove(worldId);
+
+        if (chunkSection == null)
+            return;
+
+        if (chunkSection.dirty)
+            chunkSection.write(worldId, chunkX, chunkZ, storage);
+
+        chunkSection.plants.forEach((position, value) -> onPlantRemove(worldId, chunkSection,
+                ChunkStorage.ChunkData.getX(chunkX, (int) position), ChunkStorage.ChunkData.getY((int) position),
+                ChunkStorage.ChunkData.getZ(chunkZ, (int) position), value));
+    }
+
+    /**
+     * Write all chunks that were changed since they were last saved, and mark them as saved.
+     */
+    public void saveDirtyChunks(ChunkStorage storage) {
+        for (Map.Entry<UUID, LongObjectMap<ChunkSection>> worldEntry : worlds.entrySet()) {
+            UUID worldId = worldEntry.getKey();
+            worldEntry.getValue().forEach((chunkKey, chunkSection) -> {
+                if (chunkSection.dirty) {
+                    chunkSection.dirty = false;
+                    chunkSection.write(worldId, (int) (chunkKey >> 32), (int) chunkKey, storage);
+                }
+            });
+        }
+    }
+
+    private void onPlantAdd(UUID worldId, ChunkSection chunkSection, int x, int y, int z, int value) {
+        int kind = value >>> KIND_SHIFT;
+
+        if (kind == KIND_UNKNOWN) {
+            chunkSection.unknownPlants++;
+        } else if (kind == KIND_MELON_STEM || kind == KIND_PUMPKIN_STEM) {
+            LongIntMap worldFruitStems = fruitStems.computeIfAbsent(worldId, w -> new LongIntMap(64, NONE));
+            int kindShift = kind == KIND_PUMPKIN_STEM ? 4 : 0;
+
+            for (int i = 0; i < STEM_OFFSETS_X.length; ++i) {
+                long fruitKey = packBlock(x - STEM_OFFSETS_X[i], y, z - STEM_OFFSETS_Z[i]);
+                int stemsMask = worldFruitStems.get(fruitKey);
+                worldFruitStems.put(fruitKey, (stemsMask == NONE ? 0 : stemsMask) | 1 << (i + kindShift));
+            }
+        }
+    }
+
+    private void onPlantRemove(UUID worldId, ChunkSection chunkSection, int x, int y, int z, int value) {
+        int kind = value >>> KIND_SHIFT;
+
+        owners.release(value & OWNER_MASK);
+
+        if (kind == KIND_UNKNOWN) {
+            chunkSection.unknownPlants--;
+        } else if (kind == KIND_MELON_STEM || kind == KIND_PUMPKIN_STEM) {
+            LongIntMap worldFruitStems = fruitStems.get(worldId);
+
+            if (worldFruitStems == null)
+                return;
+
+            int kindShift = kind == KIND_PUMPKIN_STEM ? 4 : 0;
+
+            for (int i = 0; i < STEM_OFFSETS_X.length; ++i) {
+                long fruitKey = packBlock(x - STEM_OFFSETS_X[i], y, z - STEM_OFFSETS_Z[i]);
+                int stemsMask = worldFruitStems.get(fruitKey);
+
+                if (stemsMask == NONE)
+                    continue;
+
+                stemsMask &= ~(1 << (i + kindShift));
+
+                if (stemsMask == 0) {
+                    worldFruitStems.remove(fruitKey);
+                } else {
+                    worldFruitStems.put(fruitKey, stemsMask);
+                }
+            }
+
+            if (worldFruitStems.isEmpty())
+                fruitStems.remove(worldId);
+        }
+    }
+
+    private ChunkSection getSection(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkSection> chunks = worlds.get(worldId);
+        return chunks == null ? null : chunks.get(packChunk(chunkX, chunkZ));
+    }
+
+    private ChunkSection getOrCreateSection(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkSection> chunks = worlds.computeIfAbsent(worldId, w -> new LongObjectMap<>(64));
+        long chunkKey = packChunk(chunkX, chunkZ);
+
+        ChunkSection chunkSection = chunks.get(chunkKey);
+
+        if (chunkSection == null) {
+            chunkSection = new ChunkSection();
+            chunks.put(chunkKey, chunkSection);
+        }
+
+        return chunkSection;
+    }
+
+    private static long packChunk(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+    public static long packBlock(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+    }
+
+    private static int getBlockX(long blockKey) {
+        return (int) (blockKey >> 38);
+    }
+
+    private static int getBlockY(long blockKey) {
+        return (int) (blockKey << 52 >> 52);
+    }
+
+    private static int getBlockZ(long blockKey) {
+        return (int) (blockKey << 26 >> 38);
+    }
+
+    private final class ChunkSection {
+
+        private final LongIntMap plants = new LongIntMap(16, NONE);
+        private boolean dirty = false;
+        private int unknownPlants = 0;
+
+        /**
+         * @return Whether any plants were read.
+         */
+        boolean read(UUID worldId, int chunkX, int chunkZ, ChunkStorage storage) {
+            PlantsPalette palette = new PlantsPalette();
+            ChunkStorage.ChunkData chunkData = storage.readChunk(worldId, chunkX, chunkZ, palette);
+
+            try {
+                if (chunkData == null || chunkData.size() == 0)
+                    return false;
+
+                for (int i = 0; i < chunkData.size(); ++i) {
+                    // Plants that were changed before the chunk was read are newer than the stored ones.
+                    int position = chunkData.getPosition(i);
+                    if (!plants.containsKey(position)) {
+                        int value = chunkData.getValue(i);
+                        plants.put(position, value);
+                        owners.retain(value & OWNER_MASK);
+                        onPlantAdd(worldId, this, ChunkStorage.ChunkData.getX(chunkX, position),
+                                ChunkStorage.ChunkData.getY(position), ChunkStorage.ChunkData.getZ(chunkZ, position), value);
+                    }
+                }
+
+                return true;
+            } finally {
+                palette.releaseAll();
+            }
+        }
+
+        void write(UUID worldId, int chunkX, int chunkZ, ChunkStorage storage) {
+            ChunkStorage.ChunkData chunkData = new ChunkStorage.ChunkData(plants.size());
+            plants.forEach((position, value) -> chunkData.add((int) position, value));
+            storage.writeChunkAsync(worldId, chunkX, chunkZ, chunkData, new PlantsPalette());
+        }
+
+    }
+
+    /**
+     * Stores plants by the uuid of their owner followed by their kind.
+     * Owners of a read record are kept referenced until its plants are added.
+     */
+    private final class PlantsPalette implements ChunkStorage.Palette {
+
+        private int[] ownerIds = new int[4];
+        private int ownerIdsCount = 0;
+
+        @Override
+        public String getName(int value) {
+            return owners.getName(value & OWNER_MASK) + KIND_SUFFIXES[value >>> KIND_SHIFT];
+        }
+
+        @Override
+        public int getValue(String name) {
+            int kind = KIND_UNKNOWN;
+            int kindIndex = name.indexOf(';');
+
+            if (kindIndex >= 0) {
+                String kindSuffix = name.substring(kindIndex);
+                name = name.substring(0, kindIndex);
+
+                for (int i = 1; i < KIND_SUFFIXES.length; ++i) {
+                    if (KIND_SUFFIXES[i].equals(kindSuffix))
+                        kind = i;
+                }
+            }
+
+            int ownerId = owners.getValue(name);
+
+            if (ownerId == NONE)
+                return NONE;
+
+            if (ownerIdsCount == ownerIds.length)
+                ownerIds = Arrays.copyOf(ownerIds, ownerIdsCount * 2);
+            ownerIds[ownerIdsCount++] = ownerId;
+
+            return ownerId | kind << KIND_SHIFT;
+        }
+
+        void releaseAll() {
+            for (int i = 0; i < ownerIdsCount; ++i)
+                owners.release(ownerIds[i]);
+            ownerIdsCount = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.bgsoftware.superiorskyblock.missions.farming;
+
+import com.bgsoftware.superiorskyblock.missions.common.ChunkStorage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Interns the owners of placed plants into compact ids.
+ * Every id is reference counted by the plants that are owned by it, and is reused once no plant refers to it.
+ * As a palette, ids are stored by the uuid of their owner.
+ */
+final class PlantOwners implements ChunkStorage.Palette {
+
+    private final Map<UUID, Integer> ids = new HashMap<>();
+
+    private UUID[] owners = new UUID[16];
+    private int[] references = new int[16];
+    private int[] freeIds = new int[16];
+    private int freeIdsCount = 0;
+    private int nextId = 0;
+
+    /**
+     * Get the id of an owner and add a reference to it.
+     */
+    int acquire(UUID owner) {
+        Integer id = ids.get(owner);
+
+        if (id != null) {
+            references[id]++;
+            return id;
+        }
+
+        int newId = freeIdsCount > 0 ? freeIds[--freeIdsCount] : nextId++;
+
+        if (newId == owners.length) {
+            owners = Arrays.copyOf(owners, newId * 2);
+            references = Arrays.copyOf(references, newId * 2);
+        }
+
+        owners[newId] = owner;
+        references[newId] = 1;
+        ids.put(owner, newId);
+
+        return newId;
+    }
+
+    void retain(int id) {
+        references[id]++;
+    }
+
+    void release(int id) {
+        if (--references[id] > 0)
+            return;
+
+        ids.remove(owners[id]);
+        owners[id] = null;
+
+        if (freeIdsCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, freeIdsCount * 2);
+
+        freeIds[freeIdsCount++] = id;
+    }
+
+    UUID getOwner(int id) {
+        return owners[id];
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    @Override
+    public String getName(int id) {
+        return owners[id].toString();
+    }
+
+    @Override
+    public int getValue(String name) {
+        try {
+            return acquire(UUID.fromString(name));
+        } catch (IllegalArgumentException error) {
+            return ChunkStorage.NONE;
+        }
+    }
+
+}
@@ -5,6 +5,10 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
+import com.bgsoftware.superiorskyblock.missions.common.CountersSerializer;
+import com.bgsoftware.superiorskyblock.missions.common.CountersTracker;
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -19,11 +23,8 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -36,17 +37,21 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
     private static final Pattern percentagePattern = Pattern.compile("(.*)\\{percentage_(.+?)}(.*)"),
             valuePattern = Pattern.compile("(.*)\\{value_(.+?)}(.*)");
 
-    private final Map<List<ItemStack>, Integer> itemsToCatch = new HashMap<>();
+    private Requirements<ItemStack> requirements;
 
     private JavaPlugin plugin;
+    private CompletionScheduler completionScheduler;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
 
         if (!section.contains("required-caughts"))
             throw new MissionLoadException("You must have the \"required-caughts\" section in the config.");
 
+        Requirements.Builder<ItemStack> requirementsBuilder = Requirements.newBuilder(FishingMissions::getItemName);
+
         for (String key : section.getConfigurationSection("required-caughts").getKeys(false)) {
             List<String> itemTypes = section.getStringList("required-caughts." + key + ".types");
             int amount = section.getInt("required-caughts." + key + ".amount", 1);
@@ -77,12 +82,14 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
                 itemsToCatch.add(new ItemStack(material, 1, data));
             }
 
-            this.itemsToCatch.put(itemsToCatch, amount);
+            requirementsBuilder.addRequirement(itemsToCatch, false, amount);
         }
 
+        requirements = requirementsBuilder.build();
+
         Bukkit.getPluginManager().registerEvents(this, plugin);
 
-        setClearMethod(fishingTracker -> fishingTracker.caughtItems.clear());
+        setClearMethod(FishingTracker::clear);
     }
 
     @Override
@@ -92,15 +99,7 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
         if (fishingTracker == null)
             return 0.0;
 
-        int requiredItems = 0;
-        int interactions = 0;
-
-        for (Map.Entry<List<ItemStack>, Integer> entry : this.itemsToCatch.entrySet()) {
-            requiredItems += entry.getValue();
-            interactions += Math.min(fishingTracker.getCaughts(entry.getKey()), entry.getValue());
-        }
-
-        return (double) interactions / requiredItems;
+        return fishingTracker.getProgress();
     }
 
     @Override
@@ -110,12 +109,7 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
         if (fishingTracker == null)
             return 0;
 
-        int interactions = 0;
-
-        for (Map.Entry<List<ItemStack>, Integer> entry : this.itemsToCatch.entrySet())
-            interactions += Math.min(fishingTracker.getCaughts(entry.getKey()), entry.getValue());
-
-        return interactions;
+        return fishingTracker.getProgressValue();
     }
 
     @Override
@@ -130,15 +124,8 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
 
     @Override
     public void saveProgress(ConfigurationSection section) {
-        for (Map.Entry<SuperiorPlayer, FishingTracker> entry : entrySet()) {
-            String uuid = entry.getKey().getUniqueId().toString();
-            int index = 0;
-            for (Map.Entry<ItemStack, Integer> craftedEntry : entry.getValue().caughtItems.entrySet()) {
-                section.set(uuid + "." + index + ".item", craftedEntry.getKey());
-                section.set(uuid + "." + index + ".amount", craftedEntry.getValue());
-                index++;
-            }
-        }
+        for (Map.Entry<SuperiorPlayer, FishingTracker> entry : entrySet())
+            CountersSerializer.saveKeys(section, entry.getKey().getUniqueId().toString(), entry.getValue());
     }
 
     @Override
@@ -147,23 +134,27 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
             if (uuid.equals("players"))
                 continue;
 
-            FishingTracker fishingTracker = new FishingTracker();
+            FishingTracker fishingTracker = new FishingTracker(requirements);
             UUID playerUUID = UUID.fromString(uuid);
             SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(playerUUID);
 
             insertData(superiorPlayer, fishingTracker);
 
+            if (CountersSerializer.load(section, uuid, fishingTracker))
+                continue;
+
             for (String key : section.getConfigurationSection(uuid).getKeys(false)) {
                 ItemStack itemStack = section.getItemStack(uuid + "." + key + ".item");
-                int amount = section.getInt(uuid + "." + key + ".amount");
-                fishingTracker.caughtItems.put(itemStack, amount);
+                int slot = itemStack == null ? Requirements.NO_SLOT : requirements.getSlot(itemStack);
+                if (slot != Requirements.NO_SLOT)
+                    fishingTracker.track(slot, section.getInt(uuid + "." + key + ".amount"));
             }
         }
     }
 
     @Override
     public void formatItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        FishingTracker fishingTracker = getOrCreate(superiorPlayer, s -> new FishingTracker());
+        FishingTracker fishingTracker = getOrCreate(superiorPlayer, s -> new FishingTracker(requirements));
 
         ItemMeta itemMeta = itemStack.getItemMeta();
 
@@ -191,35 +182,26 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
 
         SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(e.getPlayer());
 
-        if(!isMissionItem(caughtItemStack))
+        int itemSlot = requirements.getSlot(caughtItemStack);
+
+        if(itemSlot == Requirements.NO_SLOT)
             return;
 
         if(!superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
             return;
 
-        trackItem(superiorPlayer, caughtItem.getItemStack());
+        trackItem(superiorPlayer, itemSlot, caughtItem.getItemStack().getAmount());
     }
 
-    private void trackItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        FishingTracker blocksTracker = getOrCreate(superiorPlayer, s -> new FishingTracker());
-        blocksTracker.trackItem(itemStack);
+    private void trackItem(SuperiorPlayer superiorPlayer, int itemSlot, int amount) {
+        FishingTracker blocksTracker = getOrCreate(superiorPlayer, s -> new FishingTracker(requirements));
+        blocksTracker.track(itemSlot, amount);
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        completionScheduler.markDirty(superiorPlayer);
     }
 
-    private boolean isMissionItem(ItemStack itemStack) {
-        if (itemStack == null)
-            return false;
-
-        for (List<ItemStack> requiredItem : this.itemsToCatch.keySet()) {
-            if (requiredItem.contains(itemStack))
-                return true;
-        }
-
-        return false;
+    private static String getItemName(ItemStack itemStack) {
+        return itemStack.getType() + ":" + itemStack.getDurability();
     }
 
     private String parsePlaceholders(FishingTracker entityTracker, String line) {
@@ -230,12 +212,11 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
                 String requiredBlock = matcher.group(2).toUpperCase();
                 ItemStack itemStack = new ItemStack(Material.valueOf(requiredBlock));
 
-                Optional<Map.Entry<List<ItemStack>, Integer>> entry = itemsToCatch.entrySet().stream()
-                        .filter(e -> e.getKey().contains(itemStack)).findAny();
+                int requirement = requirements.getRequirement(itemStack);
 
-                if (entry.isPresent()) {
+                if (requirement != Requirements.NO_SLOT) {
                     line = line.replace("{percentage_" + matcher.group(2) + "}",
-                            "" + (entityTracker.getCaughts(Collections.singletonList(itemStack)) * 100) / entry.get().getValue());
+                            "" + (entityTracker.getCount(requirements.getSlot(itemStack)) * 100) / requirements.getRequiredAmount(requirement));
                 }
             } catch (Exception ignored) {
             }
@@ -246,12 +227,11 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
                 String requiredBlock = matcher.group(2).toUpperCase();
                 ItemStack itemStack = new ItemStack(Material.valueOf(requiredBlock));
 
-                Optional<Map.Entry<List<ItemStack>, Integer>> entry = itemsToCatch.entrySet().stream()
-                        .filter(e -> e.getKey().contains(itemStack)).findAny();
+                int requirement = requirements.getRequirement(itemStack);
 
-                if (entry.isPresent()) {
+                if (requirement != Requirements.NO_SLOT) {
                     line = line.replace("{value_" + matcher.group(2) + "}",
-                            "" + (entityTracker.getCaughts(Collections.singletonList(itemStack))));
+                            "" + entityTracker.getCount(requirements.getSlot(itemStack)));
                 }
             } catch (Exception ignored) {
             }
@@ -260,24 +240,10 @@ public final class FishingMissions extends Mission<FishingMissions.FishingTracke
         return ChatColor.translateAlternateColorCodes('&', line);
     }
 
-    public static class FishingTracker {
-
-        private final Map<ItemStack, Integer> caughtItems = new HashMap<>();
-
-        void trackItem(ItemStack itemStack) {
-            ItemStack keyItem = itemStack.clone();
-            keyItem.setAmount(1);
-            caughtItems.put(keyItem, caughtItems.getOrDefault(keyItem, 0) + itemStack.getAmount());
-        }
-
-        int getCaughts(List<ItemStack> itemStacks) {
-            int caughts = 0;
-
-            for(ItemStack itemStack : itemStacks) {
-                caughts += caughtItems.getOrDefault(itemStack, 0);
-            }
+    public static class FishingTracker extends CountersTracker {
 
-            return caughts;
+        FishingTracker(Requirements<ItemStack> requirements) {
+            super(requirements);
         }
 
     }
@@ -5,6 +5,7 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
@@ -38,10 +39,12 @@ public final class ItemsMissions extends Mission<ItemsMissions.ItemsTracker> imp
     private final Map<List<String>, Integer> requiredItems = new HashMap<>();
 
     private JavaPlugin plugin;
+    private CompletionScheduler completionScheduler;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
 
         if (!section.contains("required-items"))
             throw new MissionLoadException("You must have the \"required-items\" section in the config.");
@@ -185,10 +188,7 @@ public final class ItemsMissions extends Mission<ItemsMissions.ItemsTracker> imp
         if (!isMissionItem(itemStack) || !superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
             return;
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        completionScheduler.markDirty(superiorPlayer);
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -202,10 +202,7 @@ public final class ItemsMissions extends Mission<ItemsMissions.ItemsTracker> imp
         if (!isMissionItem(e.getCurrentItem()) || !superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
             return;
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        completionScheduler.markDirty(superiorPlayer);
     }
 
     private Map<ItemStack, Integer> countItems(Inventory inventory) {
@@ -5,12 +5,16 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
+import com.bgsoftware.superiorskyblock.missions.common.CountersSerializer;
+import com.bgsoftware.superiorskyblock.missions.common.CountersTracker;
+import com.bgsoftware.superiorskyblock.missions.common.Requirements;
+import com.bgsoftware.superiorskyblock.missions.common.WildStackerHook;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.ArmorStand;
 import org.bukkit.entity.Entity;
-import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
 import org.bukkit.event.EventHandler;
@@ -25,11 +29,9 @@ import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.projectiles.ProjectileSource;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -43,22 +45,30 @@ public final class KillsMissions extends Mission<KillsMissions.KillsTracker> imp
             valuePattern = Pattern.compile("(.*)\\{value_(.+?)}(.*)");
 
     private JavaPlugin plugin;
-    private final Map<List<String>, Integer> requiredEntities = new HashMap<>();
+    private CompletionScheduler completionScheduler;
+    private Requirements<String> requirements;
     private boolean resetAfterFinish;
+    private WildStackerHook wildStackerHook;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
+        this.wildStackerHook = new WildStackerHook(plugin);
 
         if (!section.contains("required-entities"))
             throw new MissionLoadException("You must have the \"required-entities\" section in the config.");
 
+        Map<List<String>, Integer> requiredEntities = new HashMap<>();
+
         for (String key : section.getConfigurationSection("required-entities").getKeys(false)) {
             List<String> entityTypes = section.getStringList("required-entities." + key + ".types");
             int requiredAmount = section.getInt("required-entities." + key + ".amount");
             requiredEntities.put(entityTypes, requiredAmount);
         }
 
+        requirements = Requirements.fromNames(requiredEntities);
+
         resetAfterFinish = section.getBoolean("reset-after-finish", false);
 
         Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -71,15 +81,7 @@ public final class KillsMissions extends Mission<KillsMissions.KillsTracker> imp
         if (killsTracker == null)
             return 0.0;
 
-        int requiredEntities = 0;
-        int kills = 0;
-
-        for (Map.Entry<List<String>, Integer> requiredEntity : this.requiredEntities.entrySet()) {
-            requiredEntities += requiredEntity.getValue();
-            kills += Math.min(killsTracker.getKills(requiredEntity.getKey()), requiredEntity.getValue());
-        }
-
-        return (double) kills / requiredEntities;
+        return killsTracker.getProgress();
     }
 
     @Override
@@ -89,12 +91,7 @@ public final class KillsMissions extends Mission<KillsMissions.KillsTracker> imp
         if (killsTracker == null)
             return 0;
 
-        int kills = 0;
-
-        for (Map.Entry<List<String>, Integer> requiredEntity : this.requiredEntities.entrySet())
-            kills += Math.min(killsTracker.getKills(requiredEntity.getKey()), requiredEntity.getValue());
-
-        return kills;
+        return killsTracker.getProgressValue();
     }
 
     @Override
@@ -110,32 +107,33 @@ public final class KillsMissions extends Mission<KillsMissions.KillsTracker> imp
 
     @Override
     public void saveProgress(ConfigurationSection section) {
-        for (Map.Entry<SuperiorPlayer, KillsTracker> entry : entrySet()) {
-            String uuid = entry.getKey().getUniqueId().toString();
-            for (Map.Entry<String, Integer> brokenEntry : entry.getValue().killsTracker.entrySet()) {
-                section.set(uuid + "." + brokenEntry.getKey(), brokenEntry.getValue());
-            }
-        }
+        for (Map.Entry<SuperiorPlayer, KillsTracker> entry : entrySet())
+            CountersSerializer.save(section, entry.getKey().getUniqueId().toString(), entry.getValue());
     }
 
     @Override
     public void loadProgress(ConfigurationSection section) {
         for (String uuid : section.getKeys(false)) {
-            KillsTracker killsTracker = new KillsTracker();
+            KillsTracker killsTracker = new KillsTracker(requirements);
             UUID playerUUID = UUID.fromString(uuid);
             SuperiorPlayer superiorPlayer = SuperiorSkyblockAPI.getPlayer(playerUUID);
 
             insertData(superiorPlayer, killsTracker);
 
+            if (CountersSerializer.load(section, uuid, killsTracker))
+                continue;
+
             for (String key : section.getConfigurationSection(uuid).getKeys(false)) {
-                killsTracker.killsTracker.put(key, section.getInt(uuid + "." + key));
+                int slot = requirements.getSlotByName(key);
+                if (slot != Requirements.NO_SLOT)
+                    killsTracker.track(slot, section.getInt(uuid + "." + key));
             }
         }
     }
 
     @Override
     public void formatItem(SuperiorPlayer superiorPlayer, ItemStack itemStack) {
-        KillsTracker killsTracker = getOrCreate(superiorPlayer, s -> new KillsTracker());
+        KillsTracker killsTracker = getOrCreate(superiorPlayer, s -> new KillsTracker(requirements));
 
         ItemMeta itemMeta = itemStack.getItemMeta();
 
@@ -154,7 +152,9 @@ public final class KillsMissions extends Mission<KillsMissions.KillsTracker> imp
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onEntityKill(EntityDeathEvent e) {
-        if (!isMissionEntity(e.getEntity()))
+        int entitySlot = getEntitySlot(e.getEntity());
+
+        if (entitySlot == Requirements.NO_SLOT)
             return;
 
         EntityDamageEvent damageCause = e.getEntity().getLastDamageCause();
@@ -182,36 +182,17 @@ public final class KillsMissions extends Mission<KillsMissions.KillsTracker> imp
         if (!superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
             return;
 
-        KillsTracker killsTracker = getOrCreate(superiorPlayer, s -> new KillsTracker());
-        killsTracker.track(e.getEntity().getType().name(), getEntityAmount(e.getEntity()));
-
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
-    }
-
-    private int getEntityAmount(LivingEntity entity) {
-        if (Bukkit.getPluginManager().isPluginEnabled("WildStacker")) {
-            try {
-                return com.bgsoftware.wildstacker.api.WildStackerAPI.getEntityAmount(entity);
-            } catch (Exception ignored) {
-            }
-        }
+        KillsTracker killsTracker = getOrCreate(superiorPlayer, s -> new KillsTracker(requirements));
+        killsTracker.track(entitySlot, wildStackerHook.getEntityAmount(e.getEntity()));
 
-        return 1;
+        completionScheduler.markDirty(superiorPlayer);
     }
 
-    private boolean isMissionEntity(Entity entity) {
+    private int getEntitySlot(Entity entity) {
         if (entity == null || entity instanceof ArmorStand)
-            return false;
-
-        for (List<String> requiredEntity : requiredEntities.keySet()) {
-            if (requiredEntity.contains("ALL") || requiredEntity.contains("all") || requiredEntity.contains(entity.getType().name()))
-                return true;
-        }
+            return Requirements.NO_SLOT;
 
-        return false;
+        return requirements.getSlot(entity.getType().name());
     }
 
     private String parsePlaceholders(KillsTracker killsTracker, String line) {
@@ -219,44 +200,29 @@ public final class KillsMissions extends Mission<KillsMissions.KillsTracker> imp
 
         if (matcher.matches()) {
             String requiredBlock = matcher.group(2).toUpperCase();
-            Optional<Map.Entry<List<String>, Integer>> entry = requiredEntities.entrySet().stream().filter(e -> e.getKey().contains(requiredBlock)).findAny();
-            if (entry.isPresent()) {
+            int requirement = requirements.getRequirementByName(requiredBlock);
+            if (requirement != Requirements.NO_SLOT) {
                 line = line.replace("{percentage_" + matcher.group(2) + "}",
-                        "" + (killsTracker.getKills(Collections.singletonList(requiredBlock)) * 100) / entry.get().getValue());
+                        "" + (killsTracker.getCountByName(requiredBlock) * 100) / requirements.getRequiredAmount(requirement));
             }
         }
 
         if ((matcher = valuePattern.matcher(line)).matches()) {
             String requiredBlock = matcher.group(2).toUpperCase();
-            Optional<Map.Entry<List<String>, Integer>> entry = requiredEntities.entrySet().stream().filter(e -> e.getKey().contains(requiredBlock)).findFirst();
-            if (entry.isPresent()) {
+            int requirement = requirements.getRequirementByName(requiredBlock);
+            if (requirement != Requirements.NO_SLOT) {
                 line = line.replace("{value_" + matcher.group(2) + "}",
-                        "" + killsTracker.getKills(Collections.singletonList(requiredBlock)));
+                        "" + killsTracker.getCountByName(requiredBlock));
             }
         }
 
         return ChatColor.translateAlternateColorCodes('&', line);
     }
 
-    public static class KillsTracker {
-
-        private final Map<String, Integer> killsTracker = new HashMap<>();
-
-        void track(String entity, int amount) {
-            int newAmount = amount + killsTracker.getOrDefault(entity, 0);
-            killsTracker.put(entity, newAmount);
-        }
-
-        int getKills(List<String> entities) {
-            int amount = 0;
-            boolean all = entities.contains("ALL") || entities.contains("all");
-
-            for (String entity : killsTracker.keySet()) {
-                if (all || entities.contains(entity))
-                    amount += killsTracker.get(entity);
-            }
+    public static class KillsTracker extends CountersTracker {
 
-            return amount;
+        KillsTracker(Requirements<String> requirements) {
+            super(requirements);
         }
 
     }
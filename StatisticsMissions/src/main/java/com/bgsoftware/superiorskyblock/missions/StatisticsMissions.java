@@ -5,6 +5,7 @@ import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
 import com.bgsoftware.superiorskyblock.api.missions.Mission;
 import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
 import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.common.CompletionScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
@@ -28,10 +29,12 @@ public final class StatisticsMissions extends Mission<Void> implements Listener
     private final Map<List<String>, Integer> requiredStatistics = new HashMap<>();
 
     private JavaPlugin plugin;
+    private CompletionScheduler completionScheduler;
 
     @Override
     public void load(JavaPlugin plugin, ConfigurationSection section) throws MissionLoadException {
         this.plugin = plugin;
+        this.completionScheduler = new CompletionScheduler(plugin, this);
 
         if (!section.contains("required-statistics"))
             throw new MissionLoadException("You must have the \"required-blocks\" section in the config.");
@@ -126,10 +129,7 @@ public final class StatisticsMissions extends Mission<Void> implements Listener
         if (!isMissionStatistic(e.getStatistic()) || !superiorSkyblock.getMissions().canCompleteNoProgress(superiorPlayer, this))
             return;
 
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> superiorPlayer.runIfOnline(player -> {
-            if (canComplete(superiorPlayer))
-                SuperiorSkyblockAPI.getSuperiorSkyblock().getMissions().rewardMission(this, superiorPlayer, true);
-        }), 2L);
+        completionScheduler.markDirty(superiorPlayer);
     }
 
     private boolean isMissionStatistic(Statistic statistic) {
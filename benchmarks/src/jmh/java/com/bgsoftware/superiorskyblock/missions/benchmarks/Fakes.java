@@ -0,0 +1,664 @@
+package com.bgsoftware.superiorskyblock.missions.benchmarks;
+
+import com.bgsoftware.superiorskyblock.api.SuperiorSkyblock;
+import com.bgsoftware.superiorskyblock.api.SuperiorSkyblockAPI;
+import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.PistonMoveReaction;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.enchantments.EnchantmentTarget;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Zombie;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.metadata.MetadataValue;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Lightweight stand-ins for the Bukkit server and SuperiorSkyblock, so missions can be loaded and called
+ * outside of a running server.
+ * Interfaces are implemented with dynamic proxies that answer only the methods the missions call, and
+ * return default values for everything else. Blocks, which the events of the benchmarks call the most, are
+ * implemented by a concrete class instead, so calling them does not box values.
+ */
+public final class Fakes {
+
+    private static final Logger logger = Logger.getLogger("Benchmarks");
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static SuperiorPlayer onlinePlayer;
+    private static boolean installed = false;
+
+    private Fakes() {
+
+    }
+
+    /**
+     * Install the fake server and plugin instances. Must be called before any mission class is loaded.
+     */
+    public static synchronized void install() {
+        if (installed)
+            return;
+
+        installed = true;
+
+        Map<String, Function<Object[], Object>> itemFactoryAnswers = new HashMap<>();
+        itemFactoryAnswers.put("getItemMeta", args -> newItemMeta(null, null));
+        itemFactoryAnswers.put("isApplicable", args -> true);
+        itemFactoryAnswers.put("asMetaFor", args -> args[0]);
+        itemFactoryAnswers.put("equals", args -> isSimilarMeta((ItemMeta) args[0], (ItemMeta) args[1]));
+        ItemFactory itemFactory = newProxy(ItemFactory.class, itemFactoryAnswers);
+
+        Map<String, Function<Object[], Object>> serverAnswers = new HashMap<>();
+        serverAnswers.put("getLogger", args -> logger);
+        serverAnswers.put("getName", args -> "Benchmarks");
+        serverAnswers.put("getVersion", args -> "benchmarks");
+        serverAnswers.put("getBukkitVersion", args -> "benchmarks");
+        serverAnswers.put("getItemFactory", args -> itemFactory);
+        serverAnswers.put("getPluginManager", args -> newProxy(PluginManager.class, new HashMap<>()));
+        serverAnswers.put("getScheduler", args -> newProxy(BukkitScheduler.class, new HashMap<>()));
+        serverAnswers.put("getWorlds", args -> new ArrayList<>());
+        serverAnswers.put("isPrimaryThread", args -> true);
+        Bukkit.setServer(newProxy(FakeServer.class, serverAnswers));
+
+        Enchantment.registerEnchantment(new FakeEnchantment(34, "DURABILITY"));
+
+        Map<String, Function<Object[], Object>> missionsAnswers = new HashMap<>();
+        missionsAnswers.put("canCompleteNoProgress", args -> true);
+        missionsAnswers.put("hasAllRequiredMissions", args -> true);
+
+        Map<String, Function<Object[], Object>> playersAnswers = new HashMap<>();
+        playersAnswers.put("getSuperiorPlayer", args -> onlinePlayer);
+
+        Map<String, Function<Object[], Object>> gridAnswers = new HashMap<>();
+        gridAnswers.put("getBlockAmount", args -> 1);
+
+        Map<String, Function<Object[], Object>> pluginAnswers = new HashMap<>();
+        pluginAnswers.put("getMissions", constant(newProxy(findReturnType("getMissions"), missionsAnswers)));
+        pluginAnswers.put("getPlayers", constant(newProxy(findReturnType("getPlayers"), playersAnswers)));
+        pluginAnswers.put("getGrid", constant(newProxy(findReturnType("getGrid"), gridAnswers)));
+        pluginAnswers.put("getName", args -> "SuperiorSkyblock2");
+        setSuperiorSkyblock(newProxy(SuperiorSkyblock.class, pluginAnswers));
+
+        onlinePlayer = newSuperiorPlayer(newPlayer("Benchmarker", new ItemStack[36]));
+    }
+
+    /**
+     * Get the player that is returned for all players lookups.
+     * The contents of its inventory are backed by the array that is returned by getContents.
+     */
+    public static SuperiorPlayer getOnlinePlayer() {
+        return onlinePlayer;
+    }
+
+    public static JavaPlugin newPlugin() {
+        try {
+            File dataFolder = Files.createTempDirectory("missions-benchmarks").toFile();
+            // Missions write their data into the folder, so it is deleted with its contents once the benchmark exits.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteRecursively(dataFolder.toPath())));
+            return new FakePlugin(dataFolder);
+        } catch (IOException error) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    public static ConfigurationSection parseConfig(String... lines) {
+        YamlConfiguration config = new YamlConfiguration();
+
+        try {
+            config.loadFromString(String.join("\n", lines));
+        } catch (InvalidConfigurationException error) {
+            throw new IllegalArgumentException(error);
+        }
+
+        return config;
+    }
+
+    public static Player newPlayer(String name, ItemStack[] inventoryContents) {
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes());
+
+        Map<String, Function<Object[], Object>> inventoryAnswers = new HashMap<>();
+        inventoryAnswers.put("getContents", args -> inventoryContents);
+        inventoryAnswers.put("getSize", constant(inventoryContents.length));
+        PlayerInventory inventory = newProxy(PlayerInventory.class, inventoryAnswers);
+
+        Map<String, Function<Object[], Object>> playerAnswers = new HashMap<>();
+        playerAnswers.put("getName", constant(name));
+        playerAnswers.put("getUniqueId", constant(uuid));
+        playerAnswers.put("getInventory", constant(inventory));
+        playerAnswers.put("getStatistic", constant(10));
+        playerAnswers.put("isOnline", constant(true));
+        return newProxy(Player.class, playerAnswers);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static SuperiorPlayer newSuperiorPlayer(Player player) {
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getName", constant(player.getName()));
+        answers.put("getUniqueId", constant(player.getUniqueId()));
+        answers.put("asPlayer", constant(player));
+        answers.put("isOnline", constant(true));
+        answers.put("runIfOnline", args -> {
+            ((Consumer<Player>) args[0]).accept(player);
+            return null;
+        });
+        return newProxy(SuperiorPlayer.class, answers);
+    }
+
+    public static World newWorld(String name) {
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes());
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getName", constant(name));
+        answers.put("getUID", constant(uuid));
+        return newProxy(World.class, answers);
+    }
+
+    public static Block newBlock(World world, int x, int y, int z, Material type) {
+        return new FakeBlock(world, x, y, z, type);
+    }
+
+    /**
+     * Create a zombie that was last damaged by a player.
+     */
+    @SuppressWarnings("deprecation")
+    public static Zombie newZombie(Player killer) {
+        EntityDamageEvent[] lastDamageCause = new EntityDamageEvent[1];
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getType", args -> EntityType.ZOMBIE);
+        answers.put("getLastDamageCause", args -> lastDamageCause[0]);
+        Zombie zombie = newProxy(Zombie.class, answers);
+        lastDamageCause[0] = new EntityDamageByEntityEvent(killer, zombie, EntityDamageEvent.DamageCause.ENTITY_ATTACK, 20D);
+        return zombie;
+    }
+
+    public static ItemStack newItem(Material type, String displayName, String... lore) {
+        ItemStack itemStack = new ItemStack(type);
+        itemStack.setItemMeta(newItemMeta(displayName, lore.length == 0 ? null : Arrays.asList(lore)));
+        return itemStack;
+    }
+
+    private static ItemMeta newItemMeta(String displayName, List<String> lore) {
+        String[] metaDisplayName = new String[]{displayName};
+        List<?>[] metaLore = new List<?>[]{lore == null ? null : new ArrayList<>(lore)};
+
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("hasDisplayName", args -> metaDisplayName[0] != null);
+        answers.put("getDisplayName", args -> metaDisplayName[0]);
+        answers.put("setDisplayName", args -> metaDisplayName[0] = (String) args[0]);
+        answers.put("hasLore", args -> metaLore[0] != null);
+        answers.put("getLore", args -> metaLore[0] == null ? null : new ArrayList<>(metaLore[0]));
+        answers.put("setLore", args -> metaLore[0] = args[0] == null ? null : new ArrayList<>((List<?>) args[0]));
+        answers.put("clone", args -> newItemMeta(metaDisplayName[0], copyLore(metaLore[0])));
+        return newProxy(ItemMeta.class, answers);
+    }
+
+    private static boolean isSimilarMeta(ItemMeta first, ItemMeta second) {
+        if (first == null || second == null)
+            return isEmptyMeta(first) && isEmptyMeta(second);
+
+        return first.hasDisplayName() == second.hasDisplayName() && first.hasLore() == second.hasLore() &&
+                (!first.hasDisplayName() || first.getDisplayName().equals(second.getDisplayName())) &&
+                (!first.hasLore() || first.getLore().equals(second.getLore()));
+    }
+
+    private static boolean isEmptyMeta(ItemMeta itemMeta) {
+        return itemMeta == null || (!itemMeta.hasDisplayName() && !itemMeta.hasLore());
+    }
+
+    private static List<String> copyLore(List<?> lore) {
+        if (lore == null)
+            return null;
+
+        List<String> copy = new ArrayList<>(lore.size());
+        for (Object line : lore)
+            copy.add((String) line);
+
+        return copy;
+    }
+
+    private static Function<Object[], Object> constant(Object value) {
+        return args -> value;
+    }
+
+    private static Class<?> findReturnType(String methodName) {
+        try {
+            return SuperiorSkyblock.class.getMethod(methodName).getReturnType();
+        } catch (NoSuchMethodException error) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    private static void setSuperiorSkyblock(SuperiorSkyblock superiorSkyblock) {
+        try {
+            for (Field field : SuperiorSkyblockAPI.class.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == SuperiorSkyblock.class) {
+                    field.setAccessible(true);
+                    field.set(null, superiorSkyblock);
+                    return;
+                }
+            }
+        } catch (IllegalAccessException error) {
+            throw new IllegalStateException(error);
+        }
+
+        throw new IllegalStateException("Cannot find the plugin instance field of SuperiorSkyblockAPI.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newProxy(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return "Fake" + type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                }
+            }
+
+            Function<Object[], Object> answer = answers.get(method.getName());
+
+            if (answer != null)
+                return answer.apply(args == null ? EMPTY_ARGS : args);
+
+            return getDefaultValue(method.getReturnType());
+        });
+    }
+
+    private static void deleteRecursively(Path folder) {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException error) {
+            logger.warning("Failed to delete " + folder + ": " + error);
+        }
+    }
+
+    private static Object getDefaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class)
+            return null;
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return '\0';
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == short.class)
+            return (short) 0;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == float.class)
+            return 0F;
+        return 0D;
+    }
+
+    /**
+     * Proxies of public interfaces may not have a package, which breaks missions that check the package of
+     * the server class. Proxies of this interface are defined in the package of the benchmarks.
+     */
+    private interface FakeServer extends Server {
+
+    }
+
+    private static final class FakePlugin extends JavaPlugin {
+
+        @SuppressWarnings("deprecation")
+        FakePlugin(File dataFolder) {
+            super(new JavaPluginLoader(Bukkit.getServer()), new PluginDescriptionFile("SuperiorSkyblock2", "benchmarks",
+                    FakePlugin.class.getName()), dataFolder, new File(dataFolder, "plugin.jar"));
+        }
+
+    }
+
+    /**
+     * A block that answers with its fields. The same location is returned on every call, so callers must not
+     * change it.
+     */
+    @SuppressWarnings("deprecation")
+    private static final class FakeBlock implements Block {
+
+        private final World world;
+        private final int x;
+        private final int y;
+        private final int z;
+        private final Material type;
+        private final Location location;
+
+        FakeBlock(World world, int x, int y, int z, Material type) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.type = type;
+            this.location = new Location(world, x, y, z);
+        }
+
+        @Override
+        public byte getData() {
+            return 0;
+        }
+
+        @Override
+        public Block getRelative(int modX, int modY, int modZ) {
+            return new FakeBlock(world, x + modX, y + modY, z + modZ, Material.AIR);
+        }
+
+        @Override
+        public Block getRelative(BlockFace face) {
+            return getRelative(face, 1);
+        }
+
+        @Override
+        public Block getRelative(BlockFace face, int distance) {
+            return getRelative(face.getModX() * distance, face.getModY() * distance, face.getModZ() * distance);
+        }
+
+        @Override
+        public Material getType() {
+            return type;
+        }
+
+        @Override
+        public int getTypeId() {
+            return type.getId();
+        }
+
+        @Override
+        public byte getLightLevel() {
+            return 0;
+        }
+
+        @Override
+        public byte getLightFromSky() {
+            return 0;
+        }
+
+        @Override
+        public byte getLightFromBlocks() {
+            return 0;
+        }
+
+        @Override
+        public World getWorld() {
+            return world;
+        }
+
+        @Override
+        public int getX() {
+            return x;
+        }
+
+        @Override
+        public int getY() {
+            return y;
+        }
+
+        @Override
+        public int getZ() {
+            return z;
+        }
+
+        @Override
+        public Location getLocation() {
+            return location;
+        }
+
+        @Override
+        public Location getLocation(Location loc) {
+            if (loc != null) {
+                loc.setWorld(world);
+                loc.setX(x);
+                loc.setY(y);
+                loc.setZ(z);
+                loc.setYaw(0);
+                loc.setPitch(0);
+            }
+
+            return loc;
+        }
+
+        @Override
+        public Chunk getChunk() {
+            return null;
+        }
+
+        @Override
+        public void setData(byte data) {
+
+        }
+
+        @Override
+        public void setData(byte data, boolean applyPhysics) {
+
+        }
+
+        @Override
+        public void setType(Material type) {
+
+        }
+
+        @Override
+        public void setType(Material type, boolean applyPhysics) {
+
+        }
+
+        @Override
+        public boolean setTypeId(int type) {
+            return false;
+        }
+
+        @Override
+        public boolean setTypeId(int type, boolean applyPhysics) {
+            return false;
+        }
+
+        @Override
+        public boolean setTypeIdAndData(int type, byte data, boolean applyPhysics) {
+            return false;
+        }
+
+        @Override
+        public BlockFace getFace(Block block) {
+            return null;
+        }
+
+        @Override
+        public BlockState getState() {
+            return null;
+        }
+
+        @Override
+        public Biome getBiome() {
+            return null;
+        }
+
+        @Override
+        public void setBiome(Biome bio) {
+
+        }
+
+        @Override
+        public boolean isBlockPowered() {
+            return false;
+        }
+
+        @Override
+        public boolean isBlockIndirectlyPowered() {
+            return false;
+        }
+
+        @Override
+        public boolean isBlockFacePowered(BlockFace face) {
+            return false;
+        }
+
+        @Override
+        public boolean isBlockFaceIndirectlyPowered(BlockFace face) {
+            return false;
+        }
+
+        @Override
+        public int getBlockPower(BlockFace face) {
+            return 0;
+        }
+
+        @Override
+        public int getBlockPower() {
+            return 0;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return type == Material.AIR;
+        }
+
+        @Override
+        public boolean isLiquid() {
+            return false;
+        }
+
+        @Override
+        public double getTemperature() {
+            return 0;
+        }
+
+        @Override
+        public double getHumidity() {
+            return 0;
+        }
+
+        @Override
+        public PistonMoveReaction getPistonMoveReaction() {
+            return PistonMoveReaction.MOVE;
+        }
+
+        @Override
+        public boolean breakNaturally() {
+            return false;
+        }
+
+        @Override
+        public boolean breakNaturally(ItemStack tool) {
+            return false;
+        }
+
+        @Override
+        public Collection<ItemStack> getDrops() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<ItemStack> getDrops(ItemStack tool) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void setMetadata(String metadataKey, MetadataValue newMetadataValue) {
+
+        }
+
+        @Override
+        public List<MetadataValue> getMetadata(String metadataKey) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean hasMetadata(String metadataKey) {
+            return false;
+        }
+
+        @Override
+        public void removeMetadata(String metadataKey, Plugin owningPlugin) {
+
+        }
+
+    }
+
+    private static final class FakeEnchantment extends Enchantment {
+
+        private final String name;
+
+        FakeEnchantment(int id, String name) {
+            super(id);
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getMaxLevel() {
+            return 3;
+        }
+
+        @Override
+        public int getStartLevel() {
+            return 1;
+        }
+
+        @Override
+        public EnchantmentTarget getItemTarget() {
+            return EnchantmentTarget.ALL;
+        }
+
+        @Override
+        public boolean conflictsWith(Enchantment other) {
+            return false;
+        }
+
+        @Override
+        public boolean canEnchantItem(ItemStack item) {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.bgsoftware.superiorskyblock.missions.benchmarks;
+
+import com.bgsoftware.superiorskyblock.api.missions.Mission;
+import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
+import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.BlocksMissions;
+import com.bgsoftware.superiorskyblock.missions.BrewingMissions;
+import com.bgsoftware.superiorskyblock.missions.CraftingMissions;
+import com.bgsoftware.superiorskyblock.missions.EnchantingMissions;
+import com.bgsoftware.superiorskyblock.missions.FarmingMissions;
+import com.bgsoftware.superiorskyblock.missions.FishingMissions;
+import com.bgsoftware.superiorskyblock.missions.KillsMissions;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of the menu item of a mission, which parses the placeholders of its name and lore.
+ * Each invocation formats a fresh copy of the item, as formatting replaces the placeholders in place.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FormatItemBenchmark {
+
+    @Param({"blocks", "brewing", "crafting", "enchanting", "farming", "fishing", "kills"})
+    public String mission;
+
+    private SuperiorPlayer superiorPlayer;
+    private Mission<?> missionInstance;
+    private ItemStack missionItem;
+
+    @Setup
+    public void setup() throws MissionLoadException {
+        Fakes.install();
+
+        superiorPlayer = Fakes.getOnlinePlayer();
+
+        String key;
+        ConfigurationSection config;
+
+        switch (mission) {
+            case "blocks":
+                missionInstance = new BlocksMissions();
+                key = "STONE";
+                config = Fakes.parseConfig(
+                        "required-blocks:",
+                        "  '1':",
+                        "    types: [STONE, COBBLESTONE]",
+                        "    amount: 100",
+                        "  '2':",
+                        "    types: [ALL]",
+                        "    amount: 50"
+                );
+                break;
+            case "brewing":
+                missionInstance = new BrewingMissions();
+                key = "SPEED;false;false;false";
+                config = Fakes.parseConfig(
+                        "required-potions:",
+                        "  '1':",
+                        "    potions:",
+                        "      '1':",
+                        "        type: SPEED",
+                        "      '2':",
+                        "        type: STRENGTH",
+                        "        upgraded: true",
+                        "    amount: 10"
+                );
+                break;
+            case "crafting":
+                missionInstance = new CraftingMissions();
+                key = "STICK";
+                config = Fakes.parseConfig(
+                        "craftings:",
+                        "  '1':",
+                        "    type: STICK",
+                        "    amount: 64",
+                        "  '2':",
+                        "    type: TORCH",
+                        "    amount: 32"
+                );
+                break;
+            case "enchanting":
+                missionInstance = new EnchantingMissions();
+                key = "DIAMOND_SWORD";
+                config = Fakes.parseConfig(
+                        "required-enchants:",
+                        "  '1':",
+                        "    types: [DIAMOND_SWORD]",
+                        "    enchants:",
+                        "      durability: 3",
+                        "    amount: 1"
+                );
+                break;
+            case "farming":
+                missionInstance = new FarmingMissions();
+                key = "CROPS";
+                config = Fakes.parseConfig(
+                        "required-plants:",
+                        "  '1':",
+                        "    types: [CROPS, CARROT]",
+                        "    amount: 100"
+                );
+                break;
+            case "fishing":
+                missionInstance = new FishingMissions();
+                key = "RAW_FISH";
+                config = Fakes.parseConfig(
+                        "required-caughts:",
+                        "  '1':",
+                        "    types: [RAW_FISH]",
+                        "    amount: 10"
+                );
+                break;
+            case "kills":
+                missionInstance = new KillsMissions();
+                key = "ZOMBIE";
+                config = Fakes.parseConfig(
+                        "required-entities:",
+                        "  '1':",
+                        "    types: [ZOMBIE, SKELETON]",
+                        "    amount: 100"
+                );
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mission " + mission);
+        }
+
+        missionInstance.load(Fakes.newPlugin(), config);
+
+        missionItem = Fakes.newItem(Material.PAPER, "&aMission: &f{value_" + key + "}",
+                "&7Progress: {value_" + key + "}",
+                "&7Completed: {percentage_" + key + "}%",
+                "&7Enchanted: {enchanted_" + key + "}",
+                "",
+                "&eClick to view the rewards.");
+    }
+
+    @Benchmark
+    public ItemStack formatItem() {
+        ItemStack itemStack = missionItem.clone();
+        missionInstance.formatItem(superiorPlayer, itemStack);
+        return itemStack;
+    }
+
+}
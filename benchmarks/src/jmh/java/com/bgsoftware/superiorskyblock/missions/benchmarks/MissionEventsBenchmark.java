@@ -0,0 +1,142 @@
+package com.bgsoftware.superiorskyblock.missions.benchmarks;
+
+import com.bgsoftware.superiorskyblock.api.missions.MissionLoadException;
+import com.bgsoftware.superiorskyblock.api.wrappers.SuperiorPlayer;
+import com.bgsoftware.superiorskyblock.missions.BlocksMissions;
+import com.bgsoftware.superiorskyblock.missions.ItemsMissions;
+import com.bgsoftware.superiorskyblock.missions.KillsMissions;
+import com.bgsoftware.superiorskyblock.missions.StatisticsMissions;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.PlayerStatisticIncrementEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event handlers and progress calculations that are called for every action of a player.
+ * Required amounts are high enough that the missions are never completed while measuring.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MissionEventsBenchmark {
+
+    private SuperiorPlayer superiorPlayer;
+
+    private BlocksMissions blocksMissions;
+    private KillsMissions killsMissions;
+    private StatisticsMissions statisticsMissions;
+    private ItemsMissions itemsMissions;
+
+    private BlockBreakEvent blockBreakEvent;
+    private EntityDeathEvent entityDeathEvent;
+    private PlayerStatisticIncrementEvent playerStatisticEvent;
+
+    @Setup
+    public void setup() throws MissionLoadException {
+        Fakes.install();
+
+        JavaPlugin plugin = Fakes.newPlugin();
+        superiorPlayer = Fakes.getOnlinePlayer();
+        Player player = superiorPlayer.asPlayer();
+        World world = Fakes.newWorld("world");
+
+        blocksMissions = new BlocksMissions();
+        blocksMissions.load(plugin, Fakes.parseConfig(
+                "required-blocks:",
+                "  '1':",
+                "    types: [STONE, COBBLESTONE]",
+                "    amount: 1000000000",
+                "  '2':",
+                "    types: [ALL]",
+                "    amount: 1000000000"
+        ));
+        blockBreakEvent = new BlockBreakEvent(Fakes.newBlock(world, 10, 64, 10, Material.STONE), player);
+
+        killsMissions = new KillsMissions();
+        killsMissions.load(plugin, Fakes.parseConfig(
+                "required-entities:",
+                "  '1':",
+                "    types: [ZOMBIE, SKELETON]",
+                "    amount: 1000000000"
+        ));
+        entityDeathEvent = new EntityDeathEvent(Fakes.newZombie(player), new ArrayList<>());
+
+        statisticsMissions = new StatisticsMissions();
+        statisticsMissions.load(plugin, Fakes.parseConfig(
+                "required-statistics:",
+                "  '1':",
+                "    statistics: [JUMP]",
+                "    amount: 1000000000",
+                "  '2':",
+                "    statistics: ['MINE_BLOCK:STONE', 'KILL_ENTITY:ZOMBIE']",
+                "    amount: 1000000000"
+        ));
+        playerStatisticEvent = new PlayerStatisticIncrementEvent(player, Statistic.MINE_BLOCK, 10, 11, Material.STONE);
+
+        itemsMissions = new ItemsMissions();
+        itemsMissions.load(plugin, Fakes.parseConfig(
+                "required-items:",
+                "  '1':",
+                "    types: [STONE, 'DIRT:0']",
+                "    amount: 1000000000",
+                "  '2':",
+                "    types: [COBBLESTONE]",
+                "    amount: 1000000000"
+        ));
+
+        // A full inventory with a few different items.
+        ItemStack[] inventoryContents = player.getInventory().getContents();
+        for (int slot = 0; slot < inventoryContents.length; ++slot) {
+            switch (slot % 4) {
+                case 0:
+                    inventoryContents[slot] = new ItemStack(Material.STONE, 64);
+                    break;
+                case 1:
+                    inventoryContents[slot] = new ItemStack(Material.DIRT, 32);
+                    break;
+                case 2:
+                    inventoryContents[slot] = new ItemStack(Material.COBBLESTONE, 16);
+                    break;
+                default:
+                    inventoryContents[slot] = null;
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public void blockBreak() {
+        blocksMissions.onBlockBreak(blockBreakEvent);
+    }
+
+    @Benchmark
+    public void entityKill() {
+        killsMissions.onEntityKill(entityDeathEvent);
+    }
+
+    @Benchmark
+    public void playerStatistic() {
+        statisticsMissions.onPlayerStatistic(playerStatisticEvent);
+    }
+
+    @Benchmark
+    public double itemsProgress() {
+        return itemsMissions.getProgress(superiorPlayer);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.bgsoftware.superiorskyblock.missions.benchmarks;
+
+import com.bgsoftware.superiorskyblock.missions.blocks.PlacedBlocksIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Piston farms that push a line of 12 placed blocks forward and pull it back every tick.
+ * Each invocation simulates a single tick of all farms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PistonFarmBenchmark {
+
+    private static final int MOVED_BLOCKS = 12;
+
+    @Param({"1", "64"})
+    public int farms;
+
+    private final UUID worldId = UUID.randomUUID();
+    private PlacedBlocksIndex placedBlocks;
+    private long[][] extendedBlockKeys;
+    private long[][] retractedBlockKeys;
+    private boolean extended;
+
+    @Setup
+    public void setup() {
+        placedBlocks = new PlacedBlocksIndex();
+        extendedBlockKeys = new long[farms][MOVED_BLOCKS];
+        retractedBlockKeys = new long[farms][MOVED_BLOCKS];
+        extended = false;
+
+        for (int farm = 0; farm < farms; ++farm) {
+            // Farms start near a chunk border, so blocks are moved between chunks.
+            int startX = farm * 32 + 8;
+            int z = farm * 3;
+
+            for (int i = 0; i < MOVED_BLOCKS; ++i) {
+                placedBlocks.put(worldId, startX + i, 64, z, 1);
+                retractedBlockKeys[farm][i] = PlacedBlocksIndex.packBlock(startX + i, 64, z);
+                extendedBlockKeys[farm][i] = PlacedBlocksIndex.packBlock(startX + i + 1, 64, z);
+            }
+        }
+    }
+
+    @Benchmark
+    public PlacedBlocksIndex pistonFarmsTick() {
+        for (int farm = 0; farm < farms; ++farm) {
+            if (extended) {
+                placedBlocks.relocate(worldId, extendedBlockKeys[farm], MOVED_BLOCKS, -1, 0, 0);
+            } else {
+                placedBlocks.relocate(worldId, retractedBlockKeys[farm], MOVED_BLOCKS, 1, 0, 0);
+            }
+        }
+
+        extended = !extended;
+
+        return placedBlocks;
+    }
+
+}